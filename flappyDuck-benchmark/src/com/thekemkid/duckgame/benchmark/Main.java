@@ -0,0 +1,23 @@
+package com.thekemkid.duckgame.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs all game loop benchmarks with the GC profiler, which adds the
+// allocation rate per operation (gc.alloc.rate.norm) to each result.
+// Pass a regular expression to run a subset, e.g. "Collision".
+public class Main {
+
+	public static void main(String[] args) throws RunnerException {
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : "com.thekemkid.duckgame.game.*Benchmark")
+				.addProfiler(GCProfiler.class)
+				.warmupIterations(5)
+				.measurementIterations(5)
+				.forks(1);
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,61 @@
+package com.thekemkid.duckgame.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// One BatchSimulation.step over 256 worlds. Steps per second times 256 is
+// the world tick throughput; compare threads to see how it scales.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchSimulationBenchmark {
+
+	private static final int WORLDS = 256;
+
+	@Param({ "1", "2", "4" })
+	public int threads;
+
+	private BatchSimulation batch;
+	private byte[] actions;
+	private float[] observations;
+	private int tick;
+
+	@Setup
+	public void setUp() {
+		batch = new BatchSimulation(WORLDS, new LevelLoader() {
+			@Override
+			public Level load(int index) {
+				return SyntheticLevels.createLevel(1000);
+			}
+		}, threads);
+		actions = new byte[WORLDS];
+		observations = new float[WORLDS * BatchSimulation.OBSERVATION_SIZE];
+	}
+
+	@TearDown
+	public void tearDown() {
+		batch.dispose();
+	}
+
+	@Benchmark
+	public float[] step() {
+		tick++;
+		for (int i = 0; i < WORLDS; i++) {
+			// run right and jump now and then, differently per world
+			actions[i] = BatchSimulation.ACTION_RIGHT;
+			if ((tick + i) % 40 < 12)
+				actions[i] |= BatchSimulation.ACTION_JUMP;
+		}
+		batch.step(actions, observations);
+		return observations;
+	}
+}
@@ -0,0 +1,44 @@
+package com.thekemkid.duckgame.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.thekemkid.duckgame.game.objects.BunnyHead;
+
+// BunnyHead.update cycling through its jump states.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BunnyHeadBenchmark {
+
+	private BunnyHead bunnyHead;
+	private int step;
+
+	@Setup
+	public void setUp() {
+		bunnyHead = new BunnyHead();
+		bunnyHead.velocity.x = bunnyHead.terminalVelocity.x;
+		bunnyHead.setFeatherPowerup(true);
+		step = 0;
+	}
+
+	@Benchmark
+	public BunnyHead update() {
+		step++;
+		// land every 30 steps and hold jump for half of the time
+		if (step % 30 == 0) {
+			bunnyHead.position.y = 0;
+			bunnyHead.jumpState = BunnyHead.JUMP_STATE.GROUNDED;
+		}
+		bunnyHead.setJumping(step % 30 < 15);
+		bunnyHead.update(1.0f / 60.0f);
+		return bunnyHead;
+	}
+}
@@ -0,0 +1,53 @@
+package com.thekemkid.duckgame.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.thekemkid.duckgame.game.objects.BunnyHead;
+
+// WorldSimulation.testCollisions with the bunny sweeping along the level, so
+// pickups are collected as they would be during play. The level is reset
+// each time the sweep starts over, so every pass sees all pickups.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CollisionBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int entities;
+
+	private WorldSimulation simulation;
+	private BunnyHead bunnyHead;
+	private int width;
+	private int step;
+
+	@Setup(org.openjdk.jmh.annotations.Level.Iteration)
+	public void setUp() {
+		simulation = SyntheticLevels.createSimulation(entities);
+		bunnyHead = simulation.level.bunnyHead;
+		width = SyntheticLevels.widthFor(entities);
+		step = 0;
+	}
+
+	@Benchmark
+	public int testCollisions() {
+		// walk the bunny through the pickup rows a tenth of a unit at a time
+		step++;
+		if (step % (10 * width) == 0)
+			simulation.level.reset();
+		bunnyHead.position.x = (step / 10) % width + (step % 10) * 0.1f;
+		bunnyHead.position.y = SyntheticLevels.HEIGHT - 4 - step % 3;
+		// teleported, not moved: nothing to sweep
+		bunnyHead.storePreviousPosition();
+		simulation.testCollisions();
+		return simulation.score;
+	}
+}
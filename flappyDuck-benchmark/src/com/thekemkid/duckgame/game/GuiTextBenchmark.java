@@ -0,0 +1,41 @@
+package com.thekemkid.duckgame.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Text the WorldRenderer GUI builds when a value changes (score, timer,
+// feather power-up and FPS counter), appended to a reused builder the way
+// HudText does.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GuiTextBenchmark {
+
+	private int frame;
+	private StringBuilder text = new StringBuilder(32);
+
+	@Benchmark
+	public void buildGuiText(Blackhole blackhole) {
+		frame++;
+		int secondsLeft = 180 - (frame % 10800) / 60;
+		text.setLength(0);
+		WorldRenderer.appendScoreText(text, frame * 100);
+		blackhole.consume(text.length());
+		text.setLength(0);
+		WorldRenderer.appendTimerText(text, secondsLeft);
+		blackhole.consume(text.length());
+		text.setLength(0);
+		WorldRenderer.appendFeatherPowerupText(text, secondsLeft % 9);
+		blackhole.consume(text.length());
+		text.setLength(0);
+		WorldRenderer.appendFpsText(text, 60);
+		blackhole.consume(text.length());
+	}
+}
@@ -0,0 +1,44 @@
+package com.thekemkid.duckgame.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Level.init parsing and Level.update on synthetic levels.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LevelBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int entities;
+
+	private int width;
+	private int[] pixels;
+	private Level level;
+
+	@Setup
+	public void setUp() {
+		width = SyntheticLevels.widthFor(entities);
+		pixels = SyntheticLevels.create(width);
+		level = new Level("synthetic", pixels, width, SyntheticLevels.HEIGHT);
+	}
+
+	@Benchmark
+	public Level init() {
+		return new Level("synthetic", pixels, width, SyntheticLevels.HEIGHT);
+	}
+
+	@Benchmark
+	public Level update() {
+		level.update(1.0f / 60.0f);
+		return level;
+	}
+}
@@ -0,0 +1,67 @@
+package com.thekemkid.duckgame.game;
+
+import com.thekemkid.duckgame.game.Level.BLOCK_TYPE;
+
+// Generates level pixel data with a given number of entities, laid out like
+// the hand made levels: a broken ground line of rocks with pickups above it.
+public class SyntheticLevels {
+
+	public static final int HEIGHT = 16;
+
+	private SyntheticLevels() {
+	}
+
+	// Each column holds one pickup and every five columns hold one rock, so
+	// a level has about 1.2 entities per column.
+	public static int widthFor(int entities) {
+		return Math.max(8, (int) (entities / 1.2f));
+	}
+
+	public static int[] create(int width) {
+		int[] pixels = new int[width * HEIGHT];
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = BLOCK_TYPE.EMPTY.getColor();
+
+		for (int x = 0; x < width; x++) {
+			// ground, with a gap every fifth column
+			if (x % 5 != 4)
+				set(pixels, width, x, HEIGHT - 1, BLOCK_TYPE.ROCK);
+
+			// one pickup per column, rows vary to spread them over the grid
+			int y = HEIGHT - 4 - x % 3;
+			switch (x % 10) {
+			case 0:
+				set(pixels, width, x, y, BLOCK_TYPE.ITEM_FEATHER);
+				break;
+			case 1:
+				set(pixels, width, x, y, BLOCK_TYPE.ITEM_CARROT);
+				break;
+			default:
+				set(pixels, width, x, y, BLOCK_TYPE.ITEM_GOLD_COIN);
+				break;
+			}
+		}
+		set(pixels, width, 2, HEIGHT - 2, BLOCK_TYPE.PLAYER_SPAWNPOINT);
+		set(pixels, width, width - 3, HEIGHT - 2, BLOCK_TYPE.ITEM_GOAL);
+		return pixels;
+	}
+
+	public static Level createLevel(int entities) {
+		int width = widthFor(entities);
+		return new Level("synthetic-" + entities, create(width), width, HEIGHT);
+	}
+
+	public static WorldSimulation createSimulation(final int entities) {
+		return new WorldSimulation(new LevelLoader() {
+			@Override
+			public Level load(int index) {
+				return createLevel(entities);
+			}
+		});
+	}
+
+	private static void set(int[] pixels, int width, int x, int y,
+			BLOCK_TYPE type) {
+		pixels[y * width + x] = type.getColor();
+	}
+}
@@ -1,22 +1,36 @@
 package com.thekemkid.duckgame;
 
-import com.badlogic.gdx.tools.imagepacker.TexturePacker2;
-import com.badlogic.gdx.tools.imagepacker.TexturePacker2.Settings;
+import java.io.IOException;
+
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.thekemkid.duckgame.game.LeaderboardClient;
+import com.thekemkid.duckgame.tools.StubLeaderboardServer;
+import com.thekemkid.duckgame.utils.EventLog;
 
 public class Main {
-	private static boolean rebuildAtlas = false;
-	private static boolean drawDebugOutline = false;
+	// The texture atlases are packed before launch by tools.AtlasPacker
 
-	public static void main(String[] args) {
-		if (rebuildAtlas) {
-			Settings settings = new Settings();
-			settings.maxWidth = 1024;
-			settings.maxHeight = 1024;
-			settings.debug = drawDebugOutline;
-			TexturePacker2.process(settings, "assets-raw/images",
-					"../BunnyHop-android/assets/images", "bunnyhop.pack");
+	public static void main(String[] args) throws IOException {
+		LeaderboardClient leaderboard = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-eventlog") && i + 1 < args.length) {
+				// write game events to a file instead of the console
+				EventLog.start(new EventLog.FileSink(new FileHandle(args[++i])));
+			} else if (args[i].equals("-leaderboard")) {
+				// submit results to host:port, or to a stub server started
+				// in this process
+				if (i + 1 < args.length && args[i + 1].indexOf(':') > 0) {
+					String[] address = args[++i].split(":");
+					leaderboard = new LeaderboardClient(address[0],
+							Integer.parseInt(address[1]));
+				} else {
+					StubLeaderboardServer server = new StubLeaderboardServer(0, true);
+					leaderboard = new LeaderboardClient("127.0.0.1",
+							server.getPort());
+				}
+			}
 		}
 
 		LwjglApplicationConfiguration cfg = new LwjglApplicationConfiguration();
@@ -25,6 +39,6 @@ public class Main {
 		cfg.width = 800;
 		cfg.height = 480;
 		
-		new LwjglApplication(new flappyGame(), cfg);
+		new LwjglApplication(new flappyGame(leaderboard), cfg);
 	}
 }
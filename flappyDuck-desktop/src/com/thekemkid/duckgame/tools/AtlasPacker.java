@@ -0,0 +1,188 @@
+package com.thekemkid.duckgame.tools;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.tools.imagepacker.TexturePacker2;
+import com.badlogic.gdx.tools.imagepacker.TexturePacker2.Settings;
+import com.thekemkid.duckgame.utils.Constants;
+
+// Packs the raw images into the texture atlases the game loads, instead of
+// packing them at launch. The pack-atlases target in build.xml runs it before
+// the desktop and Android builds (see the Ant builders in their .project
+// files and custom_rules.xml). One atlas is written per density (see
+// DENSITIES) into the Android assets, which the desktop project reads as well.
+// The input images and settings are hashed and the hash is kept next to the
+// raw images directory, outside the assets, so an atlas is only packed again
+// when something it is made from changed.
+// Usage: AtlasPacker [raw images directory] [output directory] [-force]
+// [-debug]
+public class AtlasPacker {
+
+	// Atlas file and image scale per density: full size for desktop and
+	// dense phone screens, half size for low density screens
+	private static final String[] DENSITIES = {
+			Constants.TEXTURE_ATLAS_OBJECTS, Constants.TEXTURE_ATLAS_OBJECTS_HALF };
+	private static final float[] SCALES = { 1.0f, 0.5f };
+	private static final String HASH_EXTENSION = ".hash";
+
+	public static void main(String[] args) throws Exception {
+		List<String> paths = new ArrayList<String>();
+		boolean force = false;
+		boolean debug = false;
+		for (String arg : args) {
+			if (arg.equals("-force"))
+				force = true;
+			else if (arg.equals("-debug"))
+				debug = true;
+			else
+				paths.add(arg);
+		}
+		File input = new File(paths.size() > 0 ? paths.get(0)
+				: "assets-raw/images");
+		File output = new File(paths.size() > 1 ? paths.get(1)
+				: "../flappyDuck-android/assets/images");
+		if (!input.isDirectory()) {
+			System.err.println("No such directory: " + input);
+			System.exit(1);
+		}
+
+		Settings settings = new Settings();
+		settings.maxWidth = 1024;
+		settings.maxHeight = 1024;
+		settings.debug = debug;
+
+		List<String> names = new ArrayList<String>();
+		listImages(input, "", names);
+		Collections.sort(names);
+
+		// the hashes are not shipped, keep them with the raw assets
+		File hashDir = input.getAbsoluteFile().getParentFile();
+		long start = System.nanoTime();
+		for (int i = 0; i < DENSITIES.length; i++) {
+			String packFileName = new File(DENSITIES[i]).getName();
+			String hash = hash(input, names, settings, SCALES[i]);
+			File hashFile = new File(hashDir, packFileName + HASH_EXTENSION);
+			// where earlier versions kept it
+			new File(output, packFileName + HASH_EXTENSION).delete();
+			if (!force && new File(output, packFileName).isFile()
+					&& hashFile.isFile()
+					&& hash.equals(new FileHandle(hashFile).readString())) {
+				System.out.println("up to date " + packFileName);
+				continue;
+			}
+			pack(input, names, settings, SCALES[i], output, packFileName);
+			new FileHandle(hashFile).writeString(hash, false);
+			System.out.println("packed     " + packFileName + " ("
+					+ names.size() + " images, scale " + SCALES[i] + ")");
+		}
+		System.out.println(String.format("done in %.3f s",
+				(System.nanoTime() - start) / 1e9));
+	}
+
+	// Collects the image paths below dir, relative to the input directory
+	private static void listImages(File dir, String prefix, List<String> names) {
+		File[] files = dir.listFiles();
+		if (files == null)
+			return;
+		for (File file : files) {
+			String name = prefix + file.getName();
+			if (file.isDirectory())
+				listImages(file, name + "/", names);
+			else if (name.endsWith(".png") || name.endsWith(".jpg"))
+				names.add(name);
+		}
+	}
+
+	// Hash of everything the atlas is made from: image names and contents,
+	// the settings that change the output and the scale
+	private static String hash(File input, List<String> names,
+			Settings settings, float scale) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		update(digest, scale + " " + settings.maxWidth + " "
+				+ settings.maxHeight + " " + settings.debug);
+		byte[] buffer = new byte[8192];
+		for (String name : names) {
+			update(digest, name);
+			InputStream in = new FileInputStream(new File(input, name));
+			try {
+				int n;
+				while ((n = in.read(buffer)) != -1)
+					digest.update(buffer, 0, n);
+			} finally {
+				in.close();
+			}
+		}
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest())
+			hex.append(String.format("%02x", b & 0xFF));
+		return hex.toString();
+	}
+
+	private static void update(MessageDigest digest, String text)
+			throws IOException {
+		digest.update(text.getBytes("UTF-8"));
+		digest.update((byte) 0);
+	}
+
+	private static void pack(File input, List<String> names,
+			Settings settings, float scale, File output, String packFileName)
+			throws IOException {
+		// the packer appends to an existing pack file, start from scratch
+		String pageName = packFileName.substring(0,
+				packFileName.lastIndexOf('.'));
+		File[] old = output.listFiles();
+		if (old != null) {
+			for (File file : old) {
+				String name = file.getName();
+				if (name.equals(packFileName)
+						|| name.matches(Pattern.quote(pageName)
+								+ "\\d*\\.png"))
+					file.delete();
+			}
+		}
+
+		TexturePacker2 packer = new TexturePacker2(settings);
+		for (String name : names) {
+			BufferedImage image = ImageIO.read(new File(input, name));
+			if (image == null)
+				throw new IOException("Unable to read image: " + name);
+			packer.addImage(scale(image, scale),
+					name.substring(0, name.lastIndexOf('.')));
+		}
+		packer.pack(output, packFileName);
+	}
+
+	private static BufferedImage scale(BufferedImage image, float scale) {
+		if (scale == 1)
+			return image;
+		int width = Math.max(1, Math.round(image.getWidth() * scale));
+		int height = Math.max(1, Math.round(image.getHeight() * scale));
+		BufferedImage scaled = new BufferedImage(width, height,
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = scaled.createGraphics();
+		g.drawImage(image.getScaledInstance(width, height,
+				Image.SCALE_AREA_AVERAGING), 0, 0, null);
+		g.dispose();
+		return scaled;
+	}
+}
@@ -0,0 +1,95 @@
+package com.thekemkid.duckgame.tools;
+
+import java.io.IOException;
+
+import com.thekemkid.duckgame.game.LeaderboardClient;
+
+// Drives a LeaderboardClient against an in-process StubLeaderboardServer and
+// checks the batching and retry behaviour: a burst of results goes out in
+// full batches, requests the server fails are sent again, and results queued
+// while the server is down arrive once it is back. Prints one line per check
+// and exits with 1 if any failed. Takes a few seconds, most of it the
+// client's batch delay and backoff.
+// Usage: LeaderboardCheck
+public class LeaderboardCheck {
+
+	private static final int BURST = 1000;
+	// LeaderboardClient.MAX_BATCH
+	private static final int BATCH = 128;
+	private static final int FORCED_FAILURES = 2;
+	private static final long TIMEOUT_MILLIS = 30000;
+
+	private static int failures;
+
+	public static void main(String[] args) throws IOException,
+			InterruptedException {
+		StubLeaderboardServer server = new StubLeaderboardServer(0, false);
+		int port = server.getPort();
+		LeaderboardClient client = new LeaderboardClient("127.0.0.1", port);
+
+		// a burst is sent in full batches, the rest after the batch delay
+		for (int i = 0; i < BURST; i++)
+			client.submit(i % 2, i, 10.5f);
+		await(server, BURST);
+		int batches = (BURST + BATCH - 1) / BATCH;
+		check("burst of " + BURST + " results in " + batches + " requests",
+				server.getResultCount() == BURST
+						&& server.getRequestCount() == batches,
+				server.getResultCount() + " results in "
+						+ server.getRequestCount() + " requests");
+		check("no results dropped", client.getDroppedCount() == 0,
+				client.getDroppedCount() + " dropped");
+
+		// failed requests are retried with backoff
+		server.failNext(FORCED_FAILURES);
+		for (int i = 0; i < 10; i++)
+			client.submit(0, 5000 + i, 1);
+		await(server, BURST + 10);
+		check(FORCED_FAILURES + " forced 503s retried",
+				server.getFailedCount() == FORCED_FAILURES
+						&& server.getResultCount() == BURST + 10
+						&& server.getRequestCount() == batches + 1,
+				server.getFailedCount() + " failed, "
+						+ server.getResultCount() + " results in "
+						+ server.getRequestCount() + " requests");
+		check("best score after retry", server.getBestScore(0) == 5009,
+				"best score " + server.getBestScore(0));
+
+		// results wait in the client while the server is down
+		server.stop();
+		for (int i = 0; i < 5; i++)
+			client.submit(1, 9000 + i, 1);
+		Thread.sleep(2000);
+		check("results kept while the server is down",
+				client.getPendingCount() == 5, client.getPendingCount()
+						+ " pending");
+		server = new StubLeaderboardServer(port, false);
+		await(server, 5);
+		check("results delivered after the server came back",
+				server.getResultCount() == 5 && client.getPendingCount() == 0,
+				server.getResultCount() + " results, "
+						+ client.getPendingCount() + " pending");
+
+		client.close();
+		server.stop();
+		System.out.println(failures == 0 ? "all checks passed" : failures
+				+ " checks failed");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	// Waits until server has results, or the timeout passed
+	private static void await(StubLeaderboardServer server, int results)
+			throws InterruptedException {
+		long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (server.getResultCount() < results
+				&& System.currentTimeMillis() < end)
+			Thread.sleep(50);
+	}
+
+	private static void check(String name, boolean passed, String actual) {
+		System.out.println((passed ? "ok   " : "FAIL ") + name
+				+ (passed ? "" : " (" + actual + ")"));
+		if (!passed)
+			failures++;
+	}
+}
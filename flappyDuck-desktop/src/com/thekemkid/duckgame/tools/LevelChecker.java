@@ -0,0 +1,137 @@
+package com.thekemkid.duckgame.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.thekemkid.duckgame.game.Level;
+import com.thekemkid.duckgame.game.LevelAnalyzer;
+import com.thekemkid.duckgame.game.LevelFormat;
+import com.thekemkid.duckgame.game.objects.AbstractGameObject;
+
+// Checks that every level in a directory can be finished: runs a
+// LevelAnalyzer on each level (in parallel, one level per task) and prints
+// the rocks, items and goals that can not be reached from the spawn point.
+// Exits with status 1 if any goal is unreachable, so it can gate a build.
+// Usage: LevelChecker [levels directory] [threads]
+public class LevelChecker {
+
+	public static void main(String[] args) throws Exception {
+		File dir = new File(args.length > 0 ? args[0]
+				: "../flappyDuck-android/assets/levels");
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime
+				.getRuntime().availableProcessors();
+		File[] files = dir.listFiles();
+		if (files == null) {
+			System.err.println("No such directory: " + dir);
+			System.exit(1);
+		}
+
+		// the compiled level if there is one and it is up to date, the image
+		// otherwise
+		List<File> levels = new ArrayList<File>();
+		for (File file : files) {
+			String name = file.getName();
+			if (name.endsWith(".png")) {
+				File compiled = new File(dir, LevelFormat.compiledName(name));
+				if (!compiled.isFile()
+						|| LevelFormat.isStale(new FileHandle(compiled),
+								new FileHandle(file)))
+					levels.add(file);
+			} else if (name.endsWith(LevelFormat.EXTENSION)
+					&& !isStale(file))
+				levels.add(file);
+		}
+
+		final ThreadLocal<LevelAnalyzer> analyzers = new ThreadLocal<LevelAnalyzer>() {
+			@Override
+			protected LevelAnalyzer initialValue() {
+				return new LevelAnalyzer();
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<String>> reports = new ArrayList<Future<String>>();
+		long start = System.nanoTime();
+		for (final File file : levels) {
+			reports.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws IOException {
+					Level level = read(file);
+					return report(file.getName(), level, analyzers.get()
+							.analyze(level));
+				}
+			}));
+		}
+
+		int failed = 0;
+		for (Future<String> report : reports) {
+			String text;
+			try {
+				text = report.get();
+			} catch (ExecutionException e) {
+				text = "FAIL " + e.getCause();
+			}
+			if (text.startsWith("FAIL"))
+				failed++;
+			System.out.println(text);
+		}
+		executor.shutdown();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format(
+				"%d levels checked in %.3f s on %d threads, %d failed",
+				levels.size(), seconds, threads, failed));
+		if (failed > 0)
+			System.exit(1);
+	}
+
+	// A compiled level whose image changed since, the image is checked
+	// instead
+	private static boolean isStale(File compiled) {
+		String name = compiled.getName();
+		File image = new File(compiled.getParentFile(), name.substring(0,
+				name.length() - LevelFormat.EXTENSION.length())
+				+ ".png");
+		return LevelFormat.isStale(new FileHandle(compiled), new FileHandle(
+				image));
+	}
+
+	private static Level read(File file) throws IOException {
+		if (file.getName().endsWith(LevelFormat.EXTENSION))
+			return new Level(file.getName(), LevelFormat.map(new FileHandle(
+					file)));
+		return LevelCompiler.read(file);
+	}
+
+	private static String report(String name, Level level,
+			LevelAnalyzer.Result result) {
+		StringBuilder text = new StringBuilder();
+		text.append(result.goal ? "ok   " : "FAIL ").append(name);
+		text.append(" (").append(result.nodes).append(" nodes, ")
+				.append(result.ticks).append(" ticks)");
+		if (!result.goal)
+			text.append("\n  goal is unreachable");
+		appendUnreached(text, "rock", result.rocks, level.rocks);
+		appendUnreached(text, "gold coin", result.goldCoins, level.goldCoins);
+		appendUnreached(text, "feather", result.feathers, level.feathers);
+		appendUnreached(text, "carrot", result.carrots, level.carrots);
+		return text.toString();
+	}
+
+	private static void appendUnreached(StringBuilder text, String what,
+			boolean[] reached, Array<? extends AbstractGameObject> objects) {
+		for (int i = 0; i < reached.length; i++) {
+			if (reached[i])
+				continue;
+			text.append("\n  unreachable ").append(what).append(" at ")
+					.append(objects.get(i).position);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.thekemkid.duckgame.tools;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.imageio.ImageIO;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.thekemkid.duckgame.game.Level;
+import com.thekemkid.duckgame.game.LevelFormat;
+
+// Compiles every levels/*.png into the binary LevelFormat next to it.
+// Usage: LevelCompiler [levels directory]
+public class LevelCompiler {
+
+	public static void main(String[] args) throws IOException {
+		File dir = new File(args.length > 0 ? args[0]
+				: "../flappyDuck-android/assets/levels");
+		File[] files = dir.listFiles();
+		if (files == null) {
+			System.err.println("No such directory: " + dir);
+			System.exit(1);
+		}
+		for (File png : files) {
+			if (!png.getName().endsWith(".png"))
+				continue;
+			File output = new File(dir, LevelFormat.compiledName(png
+					.getName()));
+			compile(png, output);
+			System.out.println(png.getName() + " -> " + output.getName()
+					+ " (" + output.length() + " bytes)");
+		}
+	}
+
+	public static void compile(File png, File output) throws IOException {
+		Level level = read(png);
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(
+				output));
+		try {
+			LevelFormat.write(level, new FileHandle(png), out);
+		} finally {
+			out.close();
+		}
+	}
+
+	// Decodes a level image without a Gdx backend
+	public static Level read(File png) throws IOException {
+		BufferedImage image = ImageIO.read(png);
+		if (image == null)
+			throw new IOException("Could not decode " + png);
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+		// ARGB (AWT) -> RGBA (Pixmap.getPixel)
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = pixels[i] << 8 | pixels[i] >>> 24;
+
+		return new Level(png.getName(), pixels, width, height);
+	}
+}
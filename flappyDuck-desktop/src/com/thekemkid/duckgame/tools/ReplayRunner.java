@@ -0,0 +1,81 @@
+package com.thekemkid.duckgame.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.thekemkid.duckgame.game.CachedLevelLoader;
+import com.thekemkid.duckgame.game.FileLevelLoader;
+import com.thekemkid.duckgame.game.InputReplay;
+import com.thekemkid.duckgame.game.Level;
+import com.thekemkid.duckgame.game.WorldSimulation;
+
+// Replays an input recording (F5 in game) without a window as fast as
+// possible and prints the simulation speed and the final state hash. Equal
+// hashes mean the simulation still behaves as when it was recorded.
+// Usage: ReplayRunner recording.rec [levels directory] [runs]
+public class ReplayRunner {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: ReplayRunner recording.rec"
+					+ " [levels directory] [runs]");
+			System.exit(1);
+		}
+		FileHandle recording = new FileHandle(new File(args[0]));
+		final File levels = new File(args.length > 1 ? args[1]
+				: "../flappyDuck-android/assets/levels");
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+		int firstHash = 0;
+		for (int run = 0; run < runs; run++) {
+			InputReplay replay = new InputReplay(ByteBuffer.wrap(recording
+					.readBytes()));
+			WorldSimulation simulation = new WorldSimulation(
+					new CachedLevelLoader(new DirectoryLevelLoader(levels)));
+
+			long start = System.nanoTime();
+			while (replay.step(simulation))
+				;
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			int hash = simulation.getStateHash();
+			System.out.println(String.format(
+					"run %d: %d ticks in %.3f s, %.0f ticks/s, hash %08x",
+					run + 1, replay.getTicksPlayed(), seconds,
+					replay.getTicksPlayed() / seconds, hash));
+			if (run == 0)
+				firstHash = hash;
+			else if (hash != firstHash)
+				System.out.println("hash differs from run 1,"
+						+ " the simulation is not deterministic");
+		}
+	}
+
+	// Loads the campaign levels with FileLevelLoader's rules from a
+	// directory on disk, and decodes images without a Gdx backend
+	private static class DirectoryLevelLoader extends FileLevelLoader {
+
+		private final File dir;
+
+		DirectoryLevelLoader(File dir) {
+			this.dir = dir;
+		}
+
+		@Override
+		protected FileHandle resolve(String filename) {
+			return new FileHandle(new File(dir, new File(filename).getName()));
+		}
+
+		@Override
+		protected Level loadImage(FileHandle image) {
+			try {
+				return LevelCompiler.read(image.file());
+			} catch (IOException e) {
+				throw new GdxRuntimeException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,267 @@
+package com.thekemkid.duckgame.tools;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.thekemkid.duckgame.game.LeaderboardClient;
+
+// Leaderboard server for trying out LeaderboardClient, in the same process
+// or on its own. One thread serves all connections with a selector,
+// decodes the posted batches and keeps the best score per level. It can be
+// told to fail requests, to see the client back off and send again.
+// Usage: StubLeaderboardServer [port]
+public class StubLeaderboardServer {
+
+	private static final int MAX_LEVELS = 64;
+	private static final int MAX_REQUEST = 64 * 1024;
+
+	private final ServerSocketChannel server;
+	private final Selector selector;
+	private final Thread thread;
+	private volatile boolean running = true;
+
+	private final Inflater inflater = new Inflater();
+	private final byte[] body = new byte[MAX_REQUEST];
+	// where the body of the last complete request starts
+	private int bodyStart;
+	private final int[] bestScores = new int[MAX_LEVELS];
+	private volatile int requests;
+	private volatile int results;
+	private volatile int failNext;
+	private volatile int failed;
+	private final boolean verbose;
+
+	// Listens on port, 0 for any free port
+	public StubLeaderboardServer(int port, boolean verbose) throws IOException {
+		this.verbose = verbose;
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.socket().bind(new InetSocketAddress("127.0.0.1", port));
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				serve();
+			}
+		}, "StubLeaderboardServer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	// Answers the next count requests with 503
+	public void failNext(int count) {
+		failNext = count;
+	}
+
+	public int getRequestCount() {
+		return requests;
+	}
+
+	public int getResultCount() {
+		return results;
+	}
+
+	// Requests answered with 503 by failNext, not in getRequestCount
+	public int getFailedCount() {
+		return failed;
+	}
+
+	public synchronized int getBestScore(int level) {
+		return bestScores[level];
+	}
+
+	public void stop() throws IOException {
+		running = false;
+		selector.wakeup();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void serve() {
+		try {
+			while (running) {
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys()
+						.iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid())
+						continue;
+					if (key.isAcceptable()) {
+						SocketChannel client = server.accept();
+						if (client == null)
+							continue;
+						client.configureBlocking(false);
+						client.register(selector, SelectionKey.OP_READ,
+								ByteBuffer.allocate(MAX_REQUEST));
+					} else if (key.isReadable()) {
+						read(key);
+					}
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Stub leaderboard server failed: " + e);
+		} finally {
+			for (SelectionKey key : selector.keys())
+				close(key);
+			try {
+				selector.close();
+			} catch (IOException e) {
+				// closing anyway
+			}
+			inflater.end();
+		}
+	}
+
+	private void read(SelectionKey key) {
+		SocketChannel client = (SocketChannel) key.channel();
+		ByteBuffer buffer = (ByteBuffer) key.attachment();
+		try {
+			if (client.read(buffer) < 0) {
+				close(key);
+				return;
+			}
+			// handle every complete request in the buffer
+			while (true) {
+				int length = request(buffer);
+				if (length < 0)
+					break;
+				String answer = failNext > 0 ? "503 Service Unavailable"
+						: "200 OK";
+				if (failNext > 0) {
+					failNext--;
+					failed++;
+				} else {
+					accept(buffer, length);
+				}
+				buffer.flip();
+				buffer.position(length);
+				buffer.compact();
+				respond(client, answer);
+			}
+			if (!buffer.hasRemaining())
+				throw new IOException("Request too large");
+		} catch (IOException e) {
+			if (verbose)
+				System.err.println("Dropping connection: " + e);
+			close(key);
+		}
+	}
+
+	// Length of the complete request at the start of buffer, -1 if not
+	// complete yet. Sets bodyStart.
+	private int request(ByteBuffer buffer) throws IOException {
+		byte[] bytes = buffer.array();
+		int end = buffer.position();
+		int headerEnd = -1;
+		for (int i = 0; i + 3 < end; i++) {
+			if (bytes[i] == '\r' && bytes[i + 1] == '\n' && bytes[i + 2] == '\r'
+					&& bytes[i + 3] == '\n') {
+				headerEnd = i + 4;
+				break;
+			}
+		}
+		if (headerEnd < 0)
+			return -1;
+		String head = new String(bytes, 0, headerEnd, "US-ASCII");
+		if (!head.startsWith("POST " + LeaderboardClient.PATH + " "))
+			throw new IOException("Unexpected request: "
+					+ head.substring(0, head.indexOf('\r')));
+		int contentLength = -1;
+		for (String line : head.split("\r\n")) {
+			int colon = line.indexOf(':');
+			if (colon > 0
+					&& line.substring(0, colon).trim()
+							.equalsIgnoreCase("Content-Length"))
+				contentLength = Integer.parseInt(line.substring(colon + 1)
+						.trim());
+		}
+		if (contentLength < 0)
+			throw new IOException("No Content-Length");
+		if (end < headerEnd + contentLength)
+			return -1;
+		bodyStart = headerEnd;
+		return headerEnd + contentLength;
+	}
+
+	// Decodes the deflated batch that ends the request
+	private void accept(ByteBuffer buffer, int length) throws IOException {
+		inflater.reset();
+		inflater.setInput(buffer.array(), bodyStart, length - bodyStart);
+		int size;
+		try {
+			size = inflater.inflate(body);
+		} catch (DataFormatException e) {
+			throw new IOException("Bad body: " + e);
+		}
+		ByteBuffer batch = ByteBuffer.wrap(body, 0, size);
+		if (batch.getInt() != LeaderboardClient.MAGIC
+				|| batch.getInt() != LeaderboardClient.VERSION)
+			throw new IOException("Not a score batch");
+		long session = batch.getLong();
+		int count = batch.getInt();
+		synchronized (this) {
+			for (int i = 0; i < count; i++) {
+				int level = batch.getInt();
+				int score = batch.getInt();
+				float timeLeft = batch.getFloat();
+				if (level >= 0 && level < MAX_LEVELS)
+					bestScores[level] = Math.max(bestScores[level], score);
+				if (verbose)
+					System.out.println(String.format(
+							"session %016x level %d score %d time left %.1f",
+							session, level, score, timeLeft));
+			}
+		}
+		requests++;
+		results += count;
+	}
+
+	private void respond(SocketChannel client, String status)
+			throws IOException {
+		ByteBuffer answer = ByteBuffer.wrap(("HTTP/1.1 " + status
+				+ "\r\nContent-Length: 0\r\n\r\n").getBytes("US-ASCII"));
+		// tiny answers, the socket buffer takes them at once
+		while (answer.hasRemaining())
+			if (client.write(answer) < 0)
+				throw new IOException("Write failed");
+	}
+
+	private static void close(SelectionKey key) {
+		key.cancel();
+		try {
+			key.channel().close();
+		} catch (IOException e) {
+			// closing anyway
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8765;
+		StubLeaderboardServer server = new StubLeaderboardServer(port, true);
+		System.out.println("Stub leaderboard listening on port "
+				+ server.getPort());
+		try {
+			server.thread.join();
+		} catch (InterruptedException e) {
+			server.stop();
+		}
+	}
+}
@@ -1,19 +0,0 @@
-package com.thekemkid.duckgame.client;
-
-import com.thekemkid.duckgame.flappyGame;
-import com.badlogic.gdx.ApplicationListener;
-import com.badlogic.gdx.backends.gwt.GwtApplication;
-import com.badlogic.gdx.backends.gwt.GwtApplicationConfiguration;
-
-public class GwtLauncher extends GwtApplication {
-	@Override
-	public GwtApplicationConfiguration getConfig () {
-		GwtApplicationConfiguration cfg = new GwtApplicationConfiguration(480, 320);
-		return cfg;
-	}
-
-	@Override
-	public ApplicationListener getApplicationListener () {
-		return new flappyGame();
-	}
-}
\ No newline at end of file
@@ -6,8 +6,12 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.GL10;
 import com.thekemkid.duckgame.game.Assets;
+import com.thekemkid.duckgame.game.LeaderboardClient;
+import com.thekemkid.duckgame.game.LoadingScreen;
 import com.thekemkid.duckgame.game.WorldController;
 import com.thekemkid.duckgame.game.WorldRenderer;
+import com.thekemkid.duckgame.utils.Constants;
+import com.thekemkid.duckgame.utils.EventLog;
 
 public class flappyGame implements ApplicationListener {
 
@@ -16,26 +20,47 @@ public class flappyGame implements ApplicationListener {
 
 	private WorldController worldController;
 	private WorldRenderer worldRenderer;
+	// shown until the assets are loaded, the world is created after that
+	private LoadingScreen loadingScreen;
 
 	private boolean paused;
 
+	// finished levels are submitted here if not null, closed on dispose
+	private final LeaderboardClient leaderboard;
+
+	public flappyGame() {
+		this(null);
+	}
+
+	public flappyGame(LeaderboardClient leaderboard) {
+		this.leaderboard = leaderboard;
+	}
+
 	@Override
 	public void create() {
 
 		Gdx.app.setLogLevel(Application.LOG_DEBUG); // Set Libgdx log level to
 													// DEBUG
 
-		Assets.instance.init(new AssetManager()); // Load assets
+		// Game events go to the platform log, unless the launcher started
+		// the event log with another sink
+		EventLog.start(new EventLog.PlatformSink());
 
-		worldController = new WorldController(); // Initialize controller and
-													// renderer
-		worldRenderer = new WorldRenderer(worldController);
+		// Queue assets, they load a bit each frame behind the loading screen
+		Assets.instance.load(new AssetManager());
+		loadingScreen = new LoadingScreen();
+		loadingScreen.resize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
 
 		paused = false; // Game world is active on start
 	}
 
 	@Override
 	public void render() {
+		if (loadingScreen != null) {
+			renderLoading();
+			return;
+		}
+
 		if (!paused) { // Do not update game world when paused.
 			// Update game world by the time that has passed since last rendered
 			// frame.
@@ -53,26 +78,58 @@ public class flappyGame implements ApplicationListener {
 		worldRenderer.render();
 	}
 
+	private void renderLoading() {
+		boolean done = Assets.instance.update(Constants.ASSET_LOAD_BUDGET);
+
+		Gdx.gl.glClearColor(0x64 / 255.0f, 0x95 / 255.0f, 0xed / 255.0f,
+				0xff / 255.0f);
+		Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
+		loadingScreen.render(Assets.instance.getProgress());
+
+		if (done) {
+			loadingScreen.dispose();
+			loadingScreen = null;
+			// Initialize controller and renderer
+			worldController = new WorldController(leaderboard);
+			worldRenderer = new WorldRenderer(worldController);
+			worldRenderer.resize(Gdx.graphics.getWidth(),
+					Gdx.graphics.getHeight());
+		}
+	}
+
 	@Override
 	public void resize(int width, int height) {
-		worldRenderer.resize(width, height);
+		if (loadingScreen != null)
+			loadingScreen.resize(width, height);
+		else
+			worldRenderer.resize(width, height);
 	}
 
 	@Override
 	public void pause() {
+		if (worldController != null)
+			worldController.pause();
 		paused = true;
 	}
 
 	@Override
 	public void resume() {
-		Assets.instance.init(new AssetManager());
+		Assets.instance.resume();
 		paused = false;
 	}
 	
 	@Override
 	public void dispose() {
-		worldRenderer.dispose();
+		if (loadingScreen != null)
+			loadingScreen.dispose();
+		else {
+			worldRenderer.dispose();
+			worldController.dispose();
+		}
 		Assets.instance.dispose();
+		if (leaderboard != null)
+			leaderboard.close();
+		EventLog.stop();
 	}
 
 }
@@ -1,13 +1,17 @@
 package com.thekemkid.duckgame.game;
 
 import com.thekemkid.duckgame.utils.Constants;
+import com.thekemkid.duckgame.utils.GlContextMonitor;
 
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.Texture.TextureWrap;
+import com.badlogic.gdx.Application.ApplicationType;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetDescriptor;
 import com.badlogic.gdx.assets.AssetErrorListener;
 import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.TextureLoader.TextureParameter;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
@@ -18,6 +22,10 @@ public class Assets implements Disposable, AssetErrorListener {
 	public static final Assets instance = new Assets();
 
 	private AssetManager assetManager;
+	private GlContextMonitor contextMonitor;
+	private String atlasName;
+	private FontRegistry fontRegistry;
+	private boolean loaded;
 
 	public AssetCarrot carrot;
 	public AssetBunny bunny;
@@ -32,28 +40,83 @@ public class Assets implements Disposable, AssetErrorListener {
 	private Assets() {
 	}
 
+	// Loads all assets before returning. Blocks for as long as decoding
+	// takes, use load and update on the render thread of the game instead.
 	public void init(AssetManager assetManager) {
+		load(assetManager);
+		// start loading assets and wait until finished
+		assetManager.finishLoading();
+		createResources();
+	}
+
+	// Queues all assets on assetManager. The textures are decoded on its
+	// loader thread while update is called each frame.
+	public void load(AssetManager assetManager) {
+		// release the textures of an earlier init
+		if (this.assetManager != null)
+			dispose();
 		this.assetManager = assetManager;
+		loaded = false;
+		contextMonitor = new GlContextMonitor();
+		// reload the atlas through the manager after a context loss
+		Texture.setAssetManager(assetManager);
 		// set asset manager error handler
 		assetManager.setErrorListener(this);
 		// load texture atlas
-		assetManager.load(Constants.TEXTURE_ATLAS_OBJECTS, TextureAtlas.class);
-		// start loading assets and wait until finished
-		assetManager.finishLoading();
+		atlasName = getAtlasName();
+		assetManager.load(atlasName, TextureAtlas.class);
+		// optional mountain texture drawn with wrapped texture coordinates
+		if (Gdx.files.internal(Constants.TEXTURE_MOUNTAINS).exists()) {
+			TextureParameter parameter = new TextureParameter();
+			parameter.minFilter = TextureFilter.Linear;
+			parameter.magFilter = TextureFilter.Linear;
+			parameter.wrapU = TextureWrap.Repeat;
+			assetManager.load(Constants.TEXTURE_MOUNTAINS, Texture.class,
+					parameter);
+		}
+		// font pages
+		fontRegistry = new FontRegistry();
+		fontRegistry.queue(Constants.FONT_DEFAULT, true, assetManager);
+		if (Gdx.files.internal(Constants.FONT_DISTANCE_FIELD).exists())
+			fontRegistry.queue(Constants.FONT_DISTANCE_FIELD, true,
+					assetManager);
+	}
+
+	// Keeps loading for about millis milliseconds, a single texture upload
+	// may take longer. Returns true once all assets are loaded and the
+	// resource objects exist.
+	public boolean update(int millis) {
+		if (loaded)
+			return true;
+		if (!assetManager.update(millis))
+			return false;
+		createResources();
+		return true;
+	}
 
+	// Fraction of the assets loaded, 0 to 1
+	public float getProgress() {
+		return loaded ? 1 : assetManager.getProgress();
+	}
+
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	private void createResources() {
 		Gdx.app.debug(TAG,
 				"# of assets loaded: " + assetManager.getAssetNames().size);
 		for (String a : assetManager.getAssetNames())
 			Gdx.app.debug(TAG, "asset: " + a);
 
-		TextureAtlas atlas = assetManager.get(Constants.TEXTURE_ATLAS_OBJECTS);
+		TextureAtlas atlas = assetManager.get(atlasName);
 
 		// enable texture filtering for pixel smoothing
 		for (Texture t : atlas.getTextures())
 			t.setFilter(TextureFilter.Linear, TextureFilter.Linear);
 
 		// create game resource objects
-		fonts = new AssetFonts();
+		fonts = new AssetFonts(fontRegistry);
 		bunny = new AssetBunny(atlas);
 		rock = new AssetRock(atlas);
 		goldCoin = new AssetGoldCoin(atlas);
@@ -61,14 +124,43 @@ public class Assets implements Disposable, AssetErrorListener {
 		carrot = new AssetCarrot(atlas);
 		goal = new AssetGoal(atlas);
 		levelDecoration = new AssetLevelDecoration(atlas);
+		loaded = true;
+	}
+
+	// The half size atlas on low density phones, if it was packed. Regions
+	// are drawn at world sizes, so only the sharpness differs.
+	private String getAtlasName() {
+		boolean lowDensity = Gdx.app.getType() == ApplicationType.Android
+				&& Gdx.graphics.getDensity() < 1;
+		if (lowDensity
+				&& Gdx.files.internal(Constants.TEXTURE_ATLAS_OBJECTS_HALF)
+						.exists())
+			return Constants.TEXTURE_ATLAS_OBJECTS_HALF;
+		return Constants.TEXTURE_ATLAS_OBJECTS;
+	}
+
+	// Call from ApplicationListener.resume(). All assets stay loaded across
+	// pause/resume. If the GL context was lost, the backend has reloaded the
+	// fonts and queued the atlas textures on the asset manager before resume
+	// is called, so only those texture loads have to finish. Regions, fonts
+	// and their texture objects stay the same instances.
+	public void resume() {
+		if (!contextMonitor.checkContextLost())
+			return;
+		// while loading, update picks up the queued textures as well
+		if (!loaded)
+			return;
+		assetManager.finishLoading();
+		Gdx.app.debug(TAG, "GL context lost, textures reloaded");
 	}
 
 	@Override
 	public void dispose() {
+		Texture.setAssetManager(null);
+		contextMonitor.dispose();
 		assetManager.dispose();
-		fonts.defaultSmall.dispose();
-		fonts.defaultNormal.dispose();
-		fonts.defaultBig.dispose();
+		fontRegistry.dispose();
+		loaded = false;
 	}
 
 	@SuppressWarnings("rawtypes")
@@ -135,6 +227,9 @@ public class Assets implements Disposable, AssetErrorListener {
 		public final AtlasRegion mountainLeft;
 		public final AtlasRegion mountainRight;
 		public final AtlasRegion waterOverlay;
+		// a left and a right mountain side by side, or null to draw the
+		// atlas regions
+		public final Texture mountains;
 
 		public AssetLevelDecoration(TextureAtlas atlas) {
 			cloud01 = atlas.findRegion("cloud01");
@@ -143,33 +238,33 @@ public class Assets implements Disposable, AssetErrorListener {
 			mountainLeft = atlas.findRegion("mountain_left");
 			mountainRight = atlas.findRegion("mountain_right");
 			waterOverlay = atlas.findRegion("water_overlay");
+			mountains = assetManager.isLoaded(Constants.TEXTURE_MOUNTAINS) ? assetManager
+					.get(Constants.TEXTURE_MOUNTAINS, Texture.class) : null;
 		}
 	}
 
 	public class AssetFonts {
+		public final FontRegistry registry;
 		public final BitmapFont defaultSmall;
 		public final BitmapFont defaultNormal;
 		public final BitmapFont defaultBig;
 
-		public AssetFonts() {
-			// create three fonts using Libgdx's 15px bitmap font
-			defaultSmall = new BitmapFont(
-					Gdx.files.internal("images/arial-15.fnt"), true);
-			defaultNormal = new BitmapFont(
-					Gdx.files.internal("images/arial-15.fnt"), true);
-			defaultBig = new BitmapFont(
-					Gdx.files.internal("images/arial-15.fnt"), true);
-			// set font sizes
-			defaultSmall.setScale(0.75f);
-			defaultNormal.setScale(1.0f);
-			defaultBig.setScale(2.0f);
-			// enable linear texture filtering for smooth fonts
-			defaultSmall.getRegion().getTexture()
-					.setFilter(TextureFilter.Linear, TextureFilter.Linear);
-			defaultNormal.getRegion().getTexture()
-					.setFilter(TextureFilter.Linear, TextureFilter.Linear);
-			defaultBig.getRegion().getTexture()
-					.setFilter(TextureFilter.Linear, TextureFilter.Linear);
+		public AssetFonts(FontRegistry registry) {
+			this.registry = registry;
+			// Libgdx's 15px bitmap font, loaded once and drawn at three sizes
+			defaultSmall = registry.get(Constants.FONT_DEFAULT, true, 0.75f);
+			defaultNormal = registry.get(Constants.FONT_DEFAULT, true, 1.0f);
+			// big text stays sharp if a distance field font is available
+			if (Gdx.files.internal(Constants.FONT_DISTANCE_FIELD).exists()) {
+				float scale = 2.0f
+						* registry.getLineHeight(Constants.FONT_DEFAULT, true)
+						/ registry.getLineHeight(
+								Constants.FONT_DISTANCE_FIELD, true);
+				defaultBig = registry.getDistanceField(
+						Constants.FONT_DISTANCE_FIELD, true, scale);
+			} else {
+				defaultBig = registry.get(Constants.FONT_DEFAULT, true, 2.0f);
+			}
 		}
 	}
 
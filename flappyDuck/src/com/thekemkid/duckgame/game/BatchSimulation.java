@@ -0,0 +1,251 @@
+package com.thekemkid.duckgame.game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.thekemkid.duckgame.game.objects.BunnyHead;
+import com.thekemkid.duckgame.game.objects.BunnyHead.JUMP_STATE;
+import com.thekemkid.duckgame.utils.Constants;
+
+// Steps many independent WorldSimulations at once, for autoplay agents.
+// Each world has its own levels (through its own CachedLevelLoader) and
+// never touches Assets or a camera.
+//
+// The worlds are split into one contiguous slice per thread. The calling
+// thread steps the first slice, worker threads the others; they are parked
+// between steps, so step() allocates nothing. Actions are one byte per
+// world, observations OBSERVATION_SIZE floats per world.
+public class BatchSimulation implements Disposable {
+
+	public static final String TAG = BatchSimulation.class.getName();
+
+	// Action bits
+	public static final byte ACTION_LEFT = 1;
+	public static final byte ACTION_RIGHT = 1 << 1;
+	public static final byte ACTION_JUMP = 1 << 2;
+
+	// Observation layout per world
+	public static final int OBS_POSITION_X = 0;
+	public static final int OBS_POSITION_Y = 1;
+	public static final int OBS_VELOCITY_X = 2;
+	public static final int OBS_VELOCITY_Y = 3;
+	// 1 if standing on a rock
+	public static final int OBS_GROUNDED = 4;
+	public static final int OBS_FEATHER_TIME_LEFT = 5;
+	public static final int OBS_TIME_LEFT = 6;
+	public static final int OBS_LIVES = 7;
+	public static final int OBS_SCORE = 8;
+	public static final int OBS_LEVEL = 9;
+	// goal position relative to the player
+	public static final int OBS_GOAL_DX = 10;
+	public static final int OBS_GOAL_DY = 11;
+	// score gained in the last step
+	public static final int OBS_REWARD = 12;
+	// 1 if the last step restarted the level (death, next level, game over)
+	public static final int OBS_LEVEL_STARTED = 13;
+	public static final int OBSERVATION_SIZE = 14;
+
+	private final WorldSimulation[] worlds;
+	private final InputState[] inputs;
+	private final int[] lastScores;
+	private final int[] lastLevelStarts;
+	private float deltaTime = 1.0f / Constants.TICK_RATE;
+
+	// slice i covers worlds [sliceStart[i], sliceStart[i + 1])
+	private final int[] sliceStart;
+	private final Worker[] workers;
+	private final AtomicInteger pending = new AtomicInteger();
+	private Thread caller;
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+	private volatile int generation;
+	private volatile boolean running = true;
+	private byte[] actions;
+	private float[] observations;
+
+	// loader must be safe to call from several threads; every world caches
+	// the levels it got from it
+	public BatchSimulation(int worldCount, LevelLoader loader, int threads) {
+		if (worldCount < 1 || threads < 1)
+			throw new IllegalArgumentException("Need at least one world and"
+					+ " one thread");
+		worlds = new WorldSimulation[worldCount];
+		inputs = new InputState[worldCount];
+		lastScores = new int[worldCount];
+		lastLevelStarts = new int[worldCount];
+		for (int i = 0; i < worldCount; i++) {
+			worlds[i] = new WorldSimulation(new CachedLevelLoader(loader));
+			inputs[i] = new InputState();
+			lastLevelStarts[i] = worlds[i].getLevelStarts();
+		}
+
+		threads = Math.min(threads, worldCount);
+		sliceStart = new int[threads + 1];
+		for (int i = 0; i <= threads; i++)
+			sliceStart[i] = (int) ((long) worldCount * i / threads);
+		workers = new Worker[threads - 1];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(i + 1);
+			workers[i].start();
+		}
+	}
+
+	// One step per available core
+	public BatchSimulation(int worldCount, LevelLoader loader) {
+		this(worldCount, loader, Runtime.getRuntime().availableProcessors());
+	}
+
+	public int getWorldCount() {
+		return worlds.length;
+	}
+
+	public WorldSimulation getWorld(int index) {
+		return worlds[index];
+	}
+
+	public void setDeltaTime(float deltaTime) {
+		this.deltaTime = deltaTime;
+	}
+
+	// Advances every world by one tick with actions[i] for world i and writes
+	// the resulting observations. Not to be called from several threads at
+	// once.
+	public void step(byte[] actions, float[] observations) {
+		if (actions.length < worlds.length
+				|| observations.length < worlds.length * OBSERVATION_SIZE)
+			throw new IllegalArgumentException("Need " + worlds.length
+					+ " actions and " + worlds.length * OBSERVATION_SIZE
+					+ " observations");
+		this.actions = actions;
+		this.observations = observations;
+		caller = Thread.currentThread();
+		pending.set(workers.length);
+		// the volatile write publishes actions and observations
+		generation++;
+		for (Worker worker : workers)
+			LockSupport.unpark(worker);
+		try {
+			stepSlice(0);
+		} catch (Throwable t) {
+			fail(t);
+		} finally {
+			// the workers still use actions and observations
+			while (pending.get() != 0)
+				LockSupport.park(this);
+			this.actions = null;
+			this.observations = null;
+		}
+		Throwable failure = this.failure.getAndSet(null);
+		if (failure != null)
+			throw new GdxRuntimeException("World update failed", failure);
+	}
+
+	// Writes the observations of the current state without stepping
+	public void observe(float[] observations) {
+		for (int i = 0; i < worlds.length; i++)
+			observe(i, observations);
+	}
+
+	// Restarts every world from the first level
+	public void reset() {
+		for (int i = 0; i < worlds.length; i++) {
+			worlds[i].init();
+			lastScores[i] = worlds[i].score;
+			lastLevelStarts[i] = worlds[i].getLevelStarts();
+		}
+	}
+
+	// Keeps the first failure of a step, from the calling thread or a worker
+	private void fail(Throwable t) {
+		failure.compareAndSet(null, t);
+	}
+
+	private void stepSlice(int slice) {
+		byte[] actions = this.actions;
+		for (int i = sliceStart[slice], n = sliceStart[slice + 1]; i < n; i++) {
+			InputState input = inputs[i];
+			int action = actions[i];
+			input.left = (action & ACTION_LEFT) != 0;
+			input.right = (action & ACTION_RIGHT) != 0;
+			input.jump = (action & ACTION_JUMP) != 0;
+			worlds[i].update(deltaTime, input);
+			observe(i, observations);
+		}
+	}
+
+	private void observe(int index, float[] observations) {
+		WorldSimulation world = worlds[index];
+		BunnyHead bunnyHead = world.level.bunnyHead;
+		int o = index * OBSERVATION_SIZE;
+		observations[o + OBS_POSITION_X] = bunnyHead.position.x;
+		observations[o + OBS_POSITION_Y] = bunnyHead.position.y;
+		observations[o + OBS_VELOCITY_X] = bunnyHead.velocity.x;
+		observations[o + OBS_VELOCITY_Y] = bunnyHead.velocity.y;
+		observations[o + OBS_GROUNDED] = bunnyHead.jumpState == JUMP_STATE.GROUNDED ? 1
+				: 0;
+		observations[o + OBS_FEATHER_TIME_LEFT] = bunnyHead.timeLeftFeatherPowerup;
+		observations[o + OBS_TIME_LEFT] = world.timeLeft;
+		observations[o + OBS_LIVES] = world.lives;
+		observations[o + OBS_SCORE] = world.score;
+		observations[o + OBS_LEVEL] = world.curLevel;
+		observations[o + OBS_GOAL_DX] = world.level.goal.position.x
+				- bunnyHead.position.x;
+		observations[o + OBS_GOAL_DY] = world.level.goal.position.y
+				- bunnyHead.position.y;
+
+		int levelStarts = world.getLevelStarts();
+		boolean started = levelStarts != lastLevelStarts[index];
+		// a restart resets the score to the one of the last finished level
+		observations[o + OBS_REWARD] = started ? 0 : world.score
+				- lastScores[index];
+		observations[o + OBS_LEVEL_STARTED] = started ? 1 : 0;
+		lastScores[index] = world.score;
+		lastLevelStarts[index] = levelStarts;
+	}
+
+	// Stops the worker threads
+	@Override
+	public void dispose() {
+		running = false;
+		for (Worker worker : workers) {
+			LockSupport.unpark(worker);
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private class Worker extends Thread {
+
+		private final int slice;
+
+		Worker(int slice) {
+			super("BatchSimulation-" + slice);
+			this.slice = slice;
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			int seen = 0;
+			while (true) {
+				while (running && generation == seen)
+					LockSupport.park(this);
+				if (!running)
+					return;
+				seen = generation;
+				try {
+					stepSlice(slice);
+				} catch (Throwable t) {
+					fail(t);
+				}
+				if (pending.decrementAndGet() == 0)
+					LockSupport.unpark(caller);
+			}
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.thekemkid.duckgame.game;
+
+import com.badlogic.gdx.utils.IntMap;
+
+// Loads every level once and hands out the same instance afterwards, reset
+// to its start state. Respawning and restarting then only reset flags and
+// the player instead of decoding the level and allocating all objects again.
+public class CachedLevelLoader implements LevelLoader {
+
+	private final LevelLoader loader;
+	private final IntMap<Level> levels = new IntMap<Level>();
+
+	public CachedLevelLoader(LevelLoader loader) {
+		this.loader = loader;
+	}
+
+	@Override
+	public Level load(int index) {
+		Level level = levels.get(index);
+		if (level == null) {
+			level = loader.load(index);
+			levels.put(index, level);
+		} else {
+			level.reset();
+		}
+		return level;
+	}
+
+	// Drops the cached levels, the next load reads them again
+	public void clear() {
+		levels.clear();
+	}
+}
@@ -0,0 +1,28 @@
+package com.thekemkid.duckgame.game;
+
+import com.badlogic.gdx.math.Vector2;
+
+// Supplies a level chunk by chunk for streaming (see LevelStreamer).
+public interface ChunkSource {
+
+	// Level width in columns (world units)
+	public int getWidth();
+
+	// Width of one chunk in columns
+	public int getChunkWidth();
+
+	public int getChunkCount();
+
+	public void getSpawnPoint(Vector2 out);
+
+	public void getGoalPosition(Vector2 out);
+
+	// Creates the objects of one chunk. Called from a worker thread, so
+	// implementations must be safe to call concurrently with the game thread.
+	public LevelChunk load(int index);
+
+	// Takes back a chunk the streamer evicted or no longer needs, e.g. to
+	// reuse its objects. Called on the game thread; nothing references the
+	// chunk or its objects afterwards.
+	public void unload(LevelChunk chunk);
+}
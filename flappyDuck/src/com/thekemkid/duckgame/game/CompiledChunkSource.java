@@ -0,0 +1,170 @@
+package com.thekemkid.duckgame.game;
+
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.thekemkid.duckgame.game.objects.Carrot;
+import com.thekemkid.duckgame.game.objects.Feather;
+import com.thekemkid.duckgame.game.objects.GoldCoin;
+import com.thekemkid.duckgame.game.objects.Rock;
+
+// Streams chunks out of a compiled level (LevelFormat). The index of each
+// section lists its records sorted by x, so a chunk is found with two binary
+// searches per index and only its own records are touched. The buffer is only read with absolute gets, which
+// keeps loading safe on the worker thread.
+//
+// A rock is listed in every chunk it reaches into, so a long rock does not
+// vanish once the chunk it starts in is evicted (Level keeps one of the
+// copies).
+public class CompiledChunkSource implements ChunkSource {
+
+	private final ByteBuffer data;
+	private final int chunkWidth;
+	private final int width;
+	private final float spawnX, spawnY;
+	private final float goalX, goalY;
+	private final int rockCount;
+	private final int rockStart;
+	private final int rockIndexStart;
+	// longest rock, how far back to look for rocks reaching into a chunk
+	private final int maxRockLength;
+	private final int entityCount;
+	private final int entityStart;
+	private final int entityIndexStart;
+
+	public CompiledChunkSource(ByteBuffer data, int chunkWidth) {
+		this.data = data;
+		this.chunkWidth = chunkWidth;
+		data.position(0);
+		LevelFormat.checkHeader(data);
+		width = data.getInt();
+		spawnX = data.getFloat();
+		spawnY = data.getFloat();
+		goalX = data.getFloat();
+		goalY = data.getFloat();
+		rockCount = data.getInt(LevelFormat.ROCK_COUNT_OFFSET);
+		rockStart = LevelFormat.ROCK_COUNT_OFFSET + 4;
+		rockIndexStart = rockStart + rockCount * LevelFormat.ROCK_SIZE;
+		int entityCountOffset = rockIndexStart + rockCount
+				* LevelFormat.INDEX_SIZE;
+		entityCount = data.getInt(entityCountOffset);
+		entityStart = entityCountOffset + 4;
+		entityIndexStart = entityStart + entityCount * LevelFormat.ENTITY_SIZE;
+		if (data.limit() < entityIndexStart + entityCount
+				* LevelFormat.INDEX_SIZE)
+			throw new GdxRuntimeException("Compiled level is truncated");
+		int maxLength = 0;
+		for (int i = 0; i < rockCount; i++)
+			maxLength = Math.max(maxLength, data.getInt(rockStart + i
+					* LevelFormat.ROCK_SIZE + 8));
+		maxRockLength = maxLength;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getChunkWidth() {
+		return chunkWidth;
+	}
+
+	@Override
+	public int getChunkCount() {
+		return MathUtils.ceil((float) width / chunkWidth);
+	}
+
+	@Override
+	public void getSpawnPoint(Vector2 out) {
+		out.set(spawnX, spawnY);
+	}
+
+	@Override
+	public void getGoalPosition(Vector2 out) {
+		out.set(goalX, goalY);
+	}
+
+	@Override
+	public LevelChunk load(int index) {
+		LevelChunk chunk = new LevelChunk(index);
+		float startX = index * chunkWidth;
+		float endX = startX + chunkWidth;
+
+		// rocks starting up to maxRockLength before the chunk may reach in
+		int first = lowerBound(rockIndexStart, rockCount, rockStart,
+				LevelFormat.ROCK_SIZE, startX - maxRockLength);
+		int last = lowerBound(rockIndexStart, rockCount, rockStart,
+				LevelFormat.ROCK_SIZE, endX);
+		for (int i = first; i < last; i++) {
+			int offset = rockStart + record(rockIndexStart, i)
+					* LevelFormat.ROCK_SIZE;
+			float x = data.getFloat(offset);
+			int length = data.getInt(offset + 8);
+			// ends before the chunk
+			if (x + length <= startX)
+				continue;
+			Rock rock = new Rock();
+			rock.position.set(x, data.getFloat(offset + 4));
+			rock.setLength(length);
+			chunk.rocks.add(rock);
+		}
+
+		first = lowerBound(entityIndexStart, entityCount, entityStart + 1,
+				LevelFormat.ENTITY_SIZE, startX);
+		last = lowerBound(entityIndexStart, entityCount, entityStart + 1,
+				LevelFormat.ENTITY_SIZE, endX);
+		for (int i = first; i < last; i++) {
+			int offset = entityStart + record(entityIndexStart, i)
+					* LevelFormat.ENTITY_SIZE;
+			float x = data.getFloat(offset + 1);
+			float y = data.getFloat(offset + 5);
+			switch (data.get(offset)) {
+			case LevelFormat.ENTITY_GOLD_COIN:
+				GoldCoin goldCoin = new GoldCoin();
+				goldCoin.position.set(x, y);
+				chunk.goldCoins.add(goldCoin);
+				break;
+			case LevelFormat.ENTITY_FEATHER:
+				Feather feather = new Feather();
+				feather.position.set(x, y);
+				chunk.feathers.add(feather);
+				break;
+			case LevelFormat.ENTITY_CARROT:
+				Carrot carrot = new Carrot();
+				carrot.position.set(x, y);
+				chunk.carrots.add(carrot);
+				break;
+			}
+		}
+		return chunk;
+	}
+
+	@Override
+	public void unload(LevelChunk chunk) {
+		// loaded again from the buffer when revisited
+	}
+
+	// Record number at position i of the index at indexStart
+	private int record(int indexStart, int i) {
+		return data.getInt(indexStart + i * LevelFormat.INDEX_SIZE);
+	}
+
+	// First position in the index at indexStart whose record has an x (float
+	// at xOffset + record * size) greater or equal to x
+	private int lowerBound(int indexStart, int count, int xOffset, int size,
+			float x) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (data.getFloat(xOffset + record(indexStart, mid) * size) < x)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+}
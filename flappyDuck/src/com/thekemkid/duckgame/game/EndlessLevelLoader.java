@@ -0,0 +1,26 @@
+package com.thekemkid.duckgame.game;
+
+import com.thekemkid.duckgame.utils.Constants;
+
+// Endless mode: levels are generated by a ProceduralChunkSource and streamed
+// around the camera, without a time limit. Each level index gets its own
+// seed, derived from the one given.
+public class EndlessLevelLoader implements LevelLoader {
+
+	private final long seed;
+
+	public EndlessLevelLoader(long seed) {
+		this.seed = seed;
+	}
+
+	@Override
+	public Level load(int index) {
+		ChunkSource source = new ProceduralChunkSource(seed + index,
+				Constants.LEVEL_CHUNK_WIDTH);
+		Level level = new Level("endless-" + seed + "-" + index,
+				new LevelStreamer(source, Constants.LEVEL_CHUNKS_BEHIND,
+						Constants.LEVEL_CHUNKS_AHEAD));
+		level.setTimeLimit(Float.POSITIVE_INFINITY);
+		return level;
+	}
+}
@@ -0,0 +1,69 @@
+package com.thekemkid.duckgame.game;
+
+import com.thekemkid.duckgame.utils.Constants;
+import com.thekemkid.duckgame.utils.GameLog;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+
+// Loads the campaign levels through Gdx.files. Uses the compiled binary
+// level next to the PNG when there is one and falls back to decoding the PNG,
+// also when the PNG changed since the level was compiled.
+// In chunked mode compiled levels are streamed around the camera.
+public class FileLevelLoader implements LevelLoader {
+
+	public static final String TAG = FileLevelLoader.class.getName();
+
+	private final boolean chunked;
+
+	public FileLevelLoader() {
+		this(false);
+	}
+
+	public FileLevelLoader(boolean chunked) {
+		this.chunked = chunked;
+	}
+
+	@Override
+	public Level load(int index) {
+		switch (index) {
+		case 0:
+			return load(Constants.LEVEL_01);
+		case 1:
+			return load(Constants.LEVEL_02);
+		default:
+			throw new IllegalArgumentException("No level with index " + index);
+		}
+	}
+
+	public Level load(String filename) {
+		FileHandle image = resolve(filename);
+		FileHandle compiled = resolve(LevelFormat.compiledName(filename));
+		if (compiled.exists() && LevelFormat.isStale(compiled, image)) {
+			GameLog.error(TAG, "Compiled level " + compiled.path()
+					+ " does not match " + image.path() + ", loading the image");
+			return loadImage(image);
+		}
+		if (compiled.exists() && chunked) {
+			ChunkSource source = new CompiledChunkSource(
+					LevelFormat.map(compiled), Constants.LEVEL_CHUNK_WIDTH);
+			return new Level(compiled.path(), new LevelStreamer(source,
+					Constants.LEVEL_CHUNKS_BEHIND,
+					Constants.LEVEL_CHUNKS_AHEAD));
+		}
+		if (compiled.exists())
+			return new Level(compiled.path(), LevelFormat.map(compiled));
+		return loadImage(image);
+	}
+
+	// Level files are internal assets, tools override this to load them from
+	// somewhere else
+	protected FileHandle resolve(String filename) {
+		return Gdx.files.internal(filename);
+	}
+
+	// Decodes a level image
+	protected Level loadImage(FileHandle image) {
+		return new Level(image.path());
+	}
+}
@@ -0,0 +1,233 @@
+package com.thekemkid.duckgame.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.TextureLoader.TextureParameter;
+import com.badlogic.gdx.graphics.GL10;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+
+// Loads every font file once. Fonts handed out for different sizes share the
+// parsed glyph tables and the page textures and only have their own scaled
+// metrics, so a font used at three sizes costs one texture upload.
+//
+// Distance field fonts store the distance to the glyph outline in the alpha
+// channel and stay sharp when scaled up. Text drawn with them has to be
+// wrapped in beginDistanceField/endDistanceField: with GL10 the outline is
+// cut with the alpha test, with GL20 a shader smooths it.
+//
+// Fonts queued with an asset manager have their pages decoded by it in the
+// background, they can be got once the manager finished loading.
+public class FontRegistry implements Disposable {
+
+	public static final String TAG = FontRegistry.class.getName();
+
+	private static final String DISTANCE_FIELD_VERTEX_SHADER = "attribute vec4 "
+			+ ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+			+ "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+			+ "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+			+ "uniform mat4 u_projTrans;\n"
+			+ "varying vec4 v_color;\n"
+			+ "varying vec2 v_texCoords;\n"
+			+ "void main() {\n"
+			+ "	v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+			+ "	v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+			+ "	gl_Position = u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+			+ "}\n";
+
+	private static final String DISTANCE_FIELD_FRAGMENT_SHADER = "#ifdef GL_ES\n"
+			+ "precision mediump float;\n"
+			+ "#endif\n"
+			+ "uniform sampler2D u_texture;\n"
+			+ "varying vec4 v_color;\n"
+			+ "varying vec2 v_texCoords;\n"
+			+ "const float smoothing = 1.0 / 16.0;\n"
+			+ "void main() {\n"
+			+ "	float distance = texture2D(u_texture, v_texCoords).a;\n"
+			+ "	float alpha = smoothstep(0.5 - smoothing, 0.5 + smoothing, distance);\n"
+			+ "	gl_FragColor = vec4(v_color.rgb, v_color.a * alpha);\n"
+			+ "}\n";
+
+	// A parsed font file and its pages, shared by all sizes
+	private static class Entry {
+		BitmapFontData data;
+		TextureRegion[] regions;
+		boolean distanceField;
+		// owns the page textures if they were queued with it
+		AssetManager assetManager;
+		Array<BitmapFont> fonts = new Array<BitmapFont>();
+	}
+
+	private final ObjectMap<String, Entry> entries = new ObjectMap<String, Entry>();
+	private ShaderProgram distanceFieldShader;
+
+	// A font for fontFile drawn at scale, created on first use
+	public BitmapFont get(String fontFile, boolean flip, float scale) {
+		return get(load(fontFile, flip), scale);
+	}
+
+	// Like get, for a font file whose pages hold a distance field
+	public BitmapFont getDistanceField(String fontFile, boolean flip,
+			float scale) {
+		Entry entry = load(fontFile, flip);
+		entry.distanceField = true;
+		return get(entry, scale);
+	}
+
+	// Line height of fontFile at scale 1
+	public float getLineHeight(String fontFile, boolean flip) {
+		return load(fontFile, flip).data.lineHeight;
+	}
+
+	// Parses fontFile and queues its pages on assetManager instead of
+	// loading them when the font is first got
+	public void queue(String fontFile, boolean flip, AssetManager assetManager) {
+		String key = fontFile + (flip ? ":flipped" : "");
+		if (entries.containsKey(key))
+			return;
+		Entry entry = new Entry();
+		entry.data = new BitmapFontData(Gdx.files.internal(fontFile), flip);
+		entry.assetManager = assetManager;
+		TextureParameter parameter = new TextureParameter();
+		// enable linear texture filtering for smooth fonts
+		parameter.minFilter = TextureFilter.Linear;
+		parameter.magFilter = TextureFilter.Linear;
+		for (String imagePath : entry.data.imagePaths)
+			assetManager.load(imagePath, Texture.class, parameter);
+		entries.put(key, entry);
+	}
+
+	public boolean isDistanceField(BitmapFont font) {
+		for (Entry entry : entries.values())
+			if (entry.fonts.contains(font, true))
+				return entry.distanceField;
+		return false;
+	}
+
+	private Entry load(String fontFile, boolean flip) {
+		String key = fontFile + (flip ? ":flipped" : "");
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			if (entry.regions == null)
+				loadQueued(entry);
+			return entry;
+		}
+		entry = new Entry();
+		entry.data = new BitmapFontData(Gdx.files.internal(fontFile), flip);
+		entry.regions = new TextureRegion[entry.data.imagePaths.length];
+		for (int i = 0; i < entry.regions.length; i++) {
+			Texture texture = new Texture(Gdx.files.getFileHandle(
+					entry.data.imagePaths[i], entry.data.fontFile.type()));
+			// enable linear texture filtering for smooth fonts
+			texture.setFilter(TextureFilter.Linear, TextureFilter.Linear);
+			entry.regions[i] = new TextureRegion(texture);
+		}
+		entries.put(key, entry);
+		Gdx.app.debug(TAG, "font '" + fontFile + "' loaded");
+		return entry;
+	}
+
+	private void loadQueued(Entry entry) {
+		String[] imagePaths = entry.data.imagePaths;
+		entry.regions = new TextureRegion[imagePaths.length];
+		for (int i = 0; i < imagePaths.length; i++) {
+			if (!entry.assetManager.isLoaded(imagePaths[i], Texture.class))
+				throw new GdxRuntimeException("Font page not loaded yet: "
+						+ imagePaths[i]);
+			entry.regions[i] = new TextureRegion(entry.assetManager.get(
+					imagePaths[i], Texture.class));
+		}
+		Gdx.app.debug(TAG, "font '" + entry.data.fontFile.path()
+				+ "' loaded");
+	}
+
+	private BitmapFont get(Entry entry, float scale) {
+		for (BitmapFont font : entry.fonts)
+			if (font.getScaleX() == scale)
+				return font;
+		BitmapFont font = new BitmapFont(copy(entry.data), entry.regions,
+				true);
+		font.setScale(scale);
+		entry.fonts.add(font);
+		return font;
+	}
+
+	// setScale rescales the metrics of a font's data, so every size needs its
+	// own data. The glyph pages are shared, glyphs hold unscaled values.
+	@SuppressWarnings("deprecation")
+	private BitmapFontData copy(BitmapFontData data) {
+		BitmapFontData copy = new BitmapFontData();
+		copy.imagePath = data.imagePath;
+		copy.imagePaths = data.imagePaths;
+		copy.fontFile = data.fontFile;
+		copy.flipped = data.flipped;
+		copy.lineHeight = data.lineHeight;
+		copy.capHeight = data.capHeight;
+		copy.ascent = data.ascent;
+		copy.descent = data.descent;
+		copy.down = data.down;
+		copy.scaleX = data.scaleX;
+		copy.scaleY = data.scaleY;
+		copy.spaceWidth = data.spaceWidth;
+		copy.xHeight = data.xHeight;
+		for (int i = 0; i < data.glyphs.length; i++)
+			copy.glyphs[i] = data.glyphs[i];
+		return copy;
+	}
+
+	// Flushes the batch and sets up drawing of distance field glyphs
+	public void beginDistanceField(SpriteBatch batch) {
+		if (Gdx.graphics.isGL20Available()) {
+			if (distanceFieldShader == null) {
+				distanceFieldShader = new ShaderProgram(
+						DISTANCE_FIELD_VERTEX_SHADER,
+						DISTANCE_FIELD_FRAGMENT_SHADER);
+				if (!distanceFieldShader.isCompiled())
+					throw new GdxRuntimeException(
+							"Distance field shader: "
+									+ distanceFieldShader.getLog());
+			}
+			batch.setShader(distanceFieldShader);
+		} else {
+			batch.flush();
+			Gdx.gl10.glEnable(GL10.GL_ALPHA_TEST);
+			Gdx.gl10.glAlphaFunc(GL10.GL_GREATER, 0.5f);
+		}
+	}
+
+	public void endDistanceField(SpriteBatch batch) {
+		if (Gdx.graphics.isGL20Available()) {
+			batch.setShader(null);
+		} else {
+			batch.flush();
+			Gdx.gl10.glDisable(GL10.GL_ALPHA_TEST);
+		}
+	}
+
+	@Override
+	public void dispose() {
+		for (Entry entry : entries.values()) {
+			if (entry.assetManager != null) {
+				for (String imagePath : entry.data.imagePaths)
+					if (entry.assetManager.isLoaded(imagePath, Texture.class))
+						entry.assetManager.unload(imagePath);
+			} else {
+				for (TextureRegion region : entry.regions)
+					region.getTexture().dispose();
+			}
+		}
+		entries.clear();
+		if (distanceFieldShader != null)
+			distanceFieldShader.dispose();
+		distanceFieldShader = null;
+	}
+}
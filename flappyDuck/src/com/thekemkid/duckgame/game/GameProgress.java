@@ -0,0 +1,82 @@
+package com.thekemkid.duckgame.game;
+
+import com.badlogic.gdx.utils.Disposable;
+import com.thekemkid.duckgame.utils.Constants;
+import com.thekemkid.duckgame.utils.JournaledStore;
+
+// Best scores and where the campaign stands, kept across launches in a
+// JournaledStore. WorldController passes the simulation after every step;
+// only values that changed are put into the store, which writes them on its
+// own thread, so a coin or the goal costs a map update and no disk access.
+//
+// The campaign is saved as it was when the current level (re)started, and
+// a restored game starts that level over.
+public class GameProgress implements Disposable {
+
+	public static final String TAG = GameProgress.class.getName();
+
+	private static final int KEY_LEVEL = 0;
+	private static final int KEY_LIVES = 1;
+	private static final int KEY_SCORE = 2;
+	private static final int KEY_BEST_TOTAL = 3;
+	// best score of level n is kept at KEY_BEST_LEVEL + n
+	private static final int KEY_BEST_LEVEL = 100;
+
+	private final JournaledStore store;
+	private int levelStarts = -1;
+	// score of the campaign when the current level started
+	private int levelStartScore;
+
+	public GameProgress(JournaledStore store) {
+		this.store = store;
+	}
+
+	// Points scored within level at best
+	public int getBestScore(int level) {
+		return store.get(KEY_BEST_LEVEL + level, 0);
+	}
+
+	// Best campaign score
+	public int getBestTotal() {
+		return store.get(KEY_BEST_TOTAL, 0);
+	}
+
+	// Continues the saved campaign in simulation, if there is one
+	public void restore(WorldSimulation simulation) {
+		int level = store.get(KEY_LEVEL, 0);
+		int lives = store.get(KEY_LIVES, 0);
+		int score = store.get(KEY_SCORE, 0);
+		if (level < 0 || level >= Constants.NUM_LEVELS || lives <= 0)
+			return;
+		// nothing to continue
+		if (level == 0 && lives == Constants.LIVES_START && score == 0)
+			return;
+		simulation.start(level, lives, score);
+	}
+
+	public void update(WorldSimulation simulation) {
+		if (simulation.getLevelStarts() != levelStarts) {
+			levelStarts = simulation.getLevelStarts();
+			levelStartScore = simulation.score;
+			store.put(KEY_LEVEL, simulation.curLevel);
+			store.put(KEY_LIVES, simulation.lives);
+			store.put(KEY_SCORE, simulation.overallScore);
+		}
+		int levelScore = simulation.score - levelStartScore;
+		if (levelScore > getBestScore(simulation.curLevel))
+			store.put(KEY_BEST_LEVEL + simulation.curLevel, levelScore);
+		if (simulation.score > getBestTotal())
+			store.put(KEY_BEST_TOTAL, simulation.score);
+	}
+
+	// Writes out what is not saved yet, e.g. when the app is paused and may
+	// be killed
+	public void flush() {
+		store.flush();
+	}
+
+	@Override
+	public void dispose() {
+		store.close();
+	}
+}
@@ -0,0 +1,85 @@
+package com.thekemkid.duckgame.game;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.HAlignment;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+// A piece of GUI text kept laid out in a BitmapFontCache. The text is tied to
+// an int value (score, whole seconds, FPS, ...) and only rebuilt when that
+// value changes, so drawing an unchanged text allocates nothing and skips
+// the glyph layout.
+public class HudText {
+
+	private final StringBuilder text = new StringBuilder(32);
+	private final BitmapFontCache cache;
+	private final boolean distanceField;
+
+	private float x;
+	private float y;
+	private float alignmentWidth;
+	private HAlignment alignment = HAlignment.LEFT;
+
+	private int value;
+	private boolean valid;
+
+	public HudText(BitmapFont font) {
+		cache = new BitmapFontCache(font, font.usesIntegerPositions());
+		distanceField = Assets.instance.fonts.registry.isDistanceField(font);
+	}
+
+	public void setPosition(float x, float y) {
+		if (this.x == x && this.y == y)
+			return;
+		this.x = x;
+		this.y = y;
+		valid = false;
+	}
+
+	public void setAlignment(float alignmentWidth, HAlignment alignment) {
+		this.alignmentWidth = alignmentWidth;
+		this.alignment = alignment;
+		valid = false;
+	}
+
+	// Tints the current text and any text laid out later
+	public void setColor(float r, float g, float b, float a) {
+		cache.setColor(r, g, b, a);
+		cache.setColors(Color.toFloatBits(r, g, b, a));
+	}
+
+	// Returns the cleared buffer to write the text for value to, or null if
+	// the current text already shows value
+	public StringBuilder edit(int value) {
+		if (valid && this.value == value)
+			return null;
+		this.value = value;
+		valid = false;
+		text.setLength(0);
+		return text;
+	}
+
+	// Returns the cleared buffer to write a new text to, for text that is not
+	// tied to an int value
+	public StringBuilder edit() {
+		valid = false;
+		text.setLength(0);
+		return text;
+	}
+
+	public void draw(SpriteBatch batch) {
+		if (!valid) {
+			cache.setMultiLineText(text, x, y, alignmentWidth, alignment);
+			valid = true;
+		}
+		if (distanceField) {
+			FontRegistry registry = Assets.instance.fonts.registry;
+			registry.beginDistanceField(batch);
+			cache.draw(batch);
+			registry.endDistanceField(batch);
+		} else {
+			cache.draw(batch);
+		}
+	}
+}
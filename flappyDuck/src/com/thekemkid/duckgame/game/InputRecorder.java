@@ -0,0 +1,128 @@
+package com.thekemkid.duckgame.game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+// Records the input and delta time of every simulation step, so a session
+// can be replayed against a fresh WorldSimulation (see InputReplay).
+//
+// Only changes are stored: a run of identical ticks is one record
+//
+// byte flags, [float deltaTime if FLAG_DELTA_TIME], varint repeat
+//
+// where repeat counts the ticks after the first. At a fixed timestep the
+// delta time is written once and a held key costs a few bytes per press.
+// The file starts with int magic, int version, int tickCount.
+public class InputRecorder {
+
+	public static final int MAGIC = 0x46445250; // "FDRP"
+	public static final int VERSION = 1;
+	public static final String EXTENSION = ".rec";
+
+	static final int FLAG_LEFT = 1;
+	static final int FLAG_RIGHT = 1 << 1;
+	static final int FLAG_JUMP = 1 << 2;
+	static final int FLAG_AUTO_FORWARD = 1 << 3;
+	// the simulation ran without player input
+	static final int FLAG_NO_INPUT = 1 << 4;
+	// WorldSimulation.init() was called before the tick
+	static final int FLAG_RESET = 1 << 5;
+	// a new delta time follows the flags
+	static final int FLAG_DELTA_TIME = 1 << 6;
+
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	private final DataOutputStream out = new DataOutputStream(bytes);
+
+	private int tickCount;
+	private boolean pendingReset;
+	private float lastDeltaTime = Float.NaN;
+
+	// the run not written yet
+	private int runFlags = -1;
+	private float runDeltaTime;
+	private int runRepeat;
+
+	// Marks that the simulation is reset before the next recorded tick
+	public void recordReset() {
+		pendingReset = true;
+	}
+
+	// Records one step, input is null if the player had no control
+	public void record(float deltaTime, InputState input) {
+		int flags = 0;
+		if (input == null) {
+			flags |= FLAG_NO_INPUT;
+		} else {
+			if (input.left)
+				flags |= FLAG_LEFT;
+			if (input.right)
+				flags |= FLAG_RIGHT;
+			if (input.jump)
+				flags |= FLAG_JUMP;
+			if (input.autoForward)
+				flags |= FLAG_AUTO_FORWARD;
+		}
+		if (pendingReset) {
+			flags |= FLAG_RESET;
+			pendingReset = false;
+		}
+		tickCount++;
+
+		// resets always start a new run, they apply to one tick only
+		if (flags == runFlags && deltaTime == runDeltaTime
+				&& (flags & FLAG_RESET) == 0) {
+			runRepeat++;
+			return;
+		}
+		flushRun();
+		runFlags = flags;
+		runDeltaTime = deltaTime;
+		runRepeat = 0;
+	}
+
+	private void flushRun() {
+		if (runFlags < 0)
+			return;
+		try {
+			if (Float.floatToIntBits(runDeltaTime) != Float
+					.floatToIntBits(lastDeltaTime)) {
+				out.writeByte(runFlags | FLAG_DELTA_TIME);
+				out.writeFloat(runDeltaTime);
+				lastDeltaTime = runDeltaTime;
+			} else {
+				out.writeByte(runFlags);
+			}
+			writeVarInt(runRepeat);
+		} catch (IOException e) {
+			throw new GdxRuntimeException(e);
+		}
+		runFlags = -1;
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.writeByte(value & 0x7f | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	public int getTickCount() {
+		return tickCount;
+	}
+
+	// Writes everything recorded so far, recording can go on afterwards
+	public void write(OutputStream output) throws IOException {
+		flushRun();
+		DataOutputStream header = new DataOutputStream(output);
+		header.writeInt(MAGIC);
+		header.writeInt(VERSION);
+		header.writeInt(tickCount);
+		bytes.writeTo(header);
+		header.flush();
+	}
+}
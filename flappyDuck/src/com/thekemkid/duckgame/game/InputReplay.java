@@ -0,0 +1,85 @@
+package com.thekemkid.duckgame.game;
+
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+// Plays a recording written by InputRecorder back into a WorldSimulation,
+// one tick per step() call and without any frame pacing.
+public class InputReplay {
+
+	private final ByteBuffer data;
+	private final int tickCount;
+	private final InputState input = new InputState();
+
+	private int ticksPlayed;
+	private int runFlags;
+	private int runLeft;
+	private float deltaTime;
+
+	public InputReplay(ByteBuffer data) {
+		this.data = data;
+		if (data.getInt() != InputRecorder.MAGIC)
+			throw new GdxRuntimeException("Not an input recording");
+		int version = data.getInt();
+		if (version != InputRecorder.VERSION)
+			throw new GdxRuntimeException("Unsupported recording version "
+					+ version);
+		tickCount = data.getInt();
+	}
+
+	public int getTickCount() {
+		return tickCount;
+	}
+
+	public int getTicksPlayed() {
+		return ticksPlayed;
+	}
+
+	public boolean hasNext() {
+		return ticksPlayed < tickCount;
+	}
+
+	// Advances simulation by the next recorded tick, false at the end
+	public boolean step(WorldSimulation simulation) {
+		if (!hasNext())
+			return false;
+		int flags;
+		if (runLeft > 0) {
+			runLeft--;
+			flags = runFlags;
+		} else {
+			flags = data.get();
+			if ((flags & InputRecorder.FLAG_DELTA_TIME) != 0)
+				deltaTime = data.getFloat();
+			runLeft = readVarInt();
+			runFlags = flags & ~InputRecorder.FLAG_RESET;
+		}
+		ticksPlayed++;
+
+		if ((flags & InputRecorder.FLAG_RESET) != 0)
+			simulation.init();
+		if ((flags & InputRecorder.FLAG_NO_INPUT) != 0) {
+			simulation.update(deltaTime, null);
+		} else {
+			input.left = (flags & InputRecorder.FLAG_LEFT) != 0;
+			input.right = (flags & InputRecorder.FLAG_RIGHT) != 0;
+			input.jump = (flags & InputRecorder.FLAG_JUMP) != 0;
+			input.autoForward = (flags & InputRecorder.FLAG_AUTO_FORWARD) != 0;
+			simulation.update(deltaTime, input);
+		}
+		return true;
+	}
+
+	private int readVarInt() {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = data.get();
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+}
@@ -0,0 +1,26 @@
+package com.thekemkid.duckgame.game;
+
+// Player input for one simulation step, decoupled from Gdx.input so the
+// simulation can be driven by recorded or generated input.
+public class InputState {
+
+	public boolean left;
+	public boolean right;
+	public boolean jump;
+	// Keep moving right while neither left nor right is pressed
+	public boolean autoForward;
+
+	public void set(InputState other) {
+		left = other.left;
+		right = other.right;
+		jump = other.jump;
+		autoForward = other.autoForward;
+	}
+
+	public void clear() {
+		left = false;
+		right = false;
+		jump = false;
+		autoForward = false;
+	}
+}
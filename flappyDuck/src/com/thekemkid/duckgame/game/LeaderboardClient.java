@@ -0,0 +1,318 @@
+package com.thekemkid.duckgame.game;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.Deflater;
+
+import com.thekemkid.duckgame.utils.GameLog;
+
+// Sends level results to a leaderboard server. submit() only copies the
+// result into a preallocated ring buffer (one writer, the game thread, and
+// one reader), so it neither allocates nor waits. A sender thread takes up
+// to MAX_BATCH results at a time, deflates them into one request and posts
+// it over a kept-alive HTTP/1.1 connection using non-blocking NIO with
+// timeouts. Results leave the buffer only once the server answered 2xx;
+// failed batches are sent again after an exponentially growing, jittered
+// delay, so a result may arrive twice if an answer is lost. If the server
+// is away long enough for the buffer to fill, new results are dropped and
+// counted.
+//
+// Request body, before deflating: MAGIC, VERSION, session id (long), count,
+// then per result level, score and time left (float), all big endian.
+public class LeaderboardClient {
+
+	public static final String TAG = LeaderboardClient.class.getName();
+
+	public static final String PATH = "/scores";
+	public static final int MAGIC = 0x53434f52; // "SCOR"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 20;
+	public static final int RESULT_SIZE = 12;
+
+	// Power of two
+	private static final int CAPACITY = 1024;
+	private static final int MASK = CAPACITY - 1;
+	private static final int MAX_BATCH = 128;
+	// Time results are collected before a batch goes out
+	private static final long BATCH_DELAY_NANOS = 1000000000L;
+	private static final long MIN_BACKOFF_NANOS = 500000000L;
+	private static final long MAX_BACKOFF_NANOS = 60000000000L;
+	private static final long TIMEOUT_MILLIS = 5000;
+
+	private final String host;
+	private final int port;
+	private final long sessionId;
+
+	// ring buffer: [sent, written) are waiting to be sent
+	private final int[] levels = new int[CAPACITY];
+	private final int[] scores = new int[CAPACITY];
+	private final float[] timesLeft = new float[CAPACITY];
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong sent = new AtomicLong();
+	// game thread only
+	private int dropped;
+
+	private volatile boolean running = true;
+	private final Thread sender;
+
+	// sender thread only
+	private final Random random = new Random();
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private final ByteBuffer payload = ByteBuffer.allocate(HEADER_SIZE
+			+ MAX_BATCH * RESULT_SIZE);
+	private byte[] compressed = new byte[payload.capacity() + 64];
+	private final ByteBuffer response = ByteBuffer.allocate(4096);
+	private SocketChannel channel;
+	private Selector selector;
+
+	public LeaderboardClient(String host, int port) {
+		this.host = host;
+		this.port = port;
+		sessionId = new Random().nextLong();
+		sender = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				send();
+			}
+		}, "LeaderboardClient");
+		sender.setDaemon(true);
+		sender.start();
+	}
+
+	// Queues a finished level, returns false if the buffer is full
+	public boolean submit(int level, int score, float timeLeft) {
+		long position = written.get();
+		long waiting = position - sent.get();
+		if (waiting >= CAPACITY) {
+			dropped++;
+			return false;
+		}
+		int index = (int) position & MASK;
+		levels[index] = level;
+		scores[index] = score;
+		timesLeft[index] = timeLeft;
+		// publishes the result to the sender
+		written.lazySet(position + 1);
+		if (waiting + 1 == MAX_BATCH)
+			LockSupport.unpark(sender);
+		return true;
+	}
+
+	// Results not acknowledged by the server yet
+	public int getPendingCount() {
+		return (int) (written.get() - sent.get());
+	}
+
+	public int getDroppedCount() {
+		return dropped;
+	}
+
+	// Stops the sender after one last attempt to send what is waiting,
+	// without waiting for it
+	public void close() {
+		running = false;
+		LockSupport.unpark(sender);
+	}
+
+	private void send() {
+		long backoff = MIN_BACKOFF_NANOS;
+		while (true) {
+			boolean stopping = !running;
+			if (!stopping && written.get() - sent.get() < MAX_BATCH)
+				LockSupport.parkNanos(BATCH_DELAY_NANOS);
+			while (written.get() != sent.get()) {
+				long first = sent.get();
+				int count = (int) Math.min(written.get() - first, MAX_BATCH);
+				try {
+					post(first, count);
+					sent.lazySet(first + count);
+					backoff = MIN_BACKOFF_NANOS;
+				} catch (IOException e) {
+					GameLog.error(TAG, "Could not submit " + count
+							+ " results: " + e);
+					disconnect();
+					// closing: one more try at the top of the loop
+					if (!running)
+						break;
+					// between half and all of the backoff
+					LockSupport.parkNanos(backoff / 2
+							+ (long) (random.nextDouble() * backoff / 2));
+					backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+				}
+			}
+			if (stopping)
+				break;
+		}
+		disconnect();
+		deflater.end();
+	}
+
+	private void post(long first, int count) throws IOException {
+		payload.clear();
+		payload.putInt(MAGIC);
+		payload.putInt(VERSION);
+		payload.putLong(sessionId);
+		payload.putInt(count);
+		for (int i = 0; i < count; i++) {
+			int index = (int) (first + i) & MASK;
+			payload.putInt(levels[index]);
+			payload.putInt(scores[index]);
+			payload.putFloat(timesLeft[index]);
+		}
+
+		deflater.reset();
+		deflater.setInput(payload.array(), 0, payload.position());
+		deflater.finish();
+		int length = 0;
+		while (!deflater.finished()) {
+			if (length == compressed.length) {
+				byte[] larger = new byte[compressed.length * 2];
+				System.arraycopy(compressed, 0, larger, 0, length);
+				compressed = larger;
+			}
+			length += deflater.deflate(compressed, length, compressed.length
+					- length);
+		}
+
+		byte[] header = ("POST " + PATH + " HTTP/1.1\r\n" + "Host: " + host
+				+ ":" + port + "\r\n"
+				+ "Content-Type: application/octet-stream\r\n"
+				+ "Content-Encoding: deflate\r\n" + "Content-Length: "
+				+ length + "\r\n" + "Connection: keep-alive\r\n\r\n")
+				.getBytes("US-ASCII");
+
+		// a kept-alive connection may have been closed by the server in the
+		// meantime, that is worth one more try on a new one
+		boolean reused = channel != null;
+		try {
+			exchange(header, length);
+		} catch (IOException e) {
+			if (!reused)
+				throw e;
+			disconnect();
+			exchange(header, length);
+		}
+	}
+
+	private void exchange(byte[] header, int length) throws IOException {
+		if (channel == null)
+			connect();
+		write(ByteBuffer.wrap(header));
+		write(ByteBuffer.wrap(compressed, 0, length));
+		int status = readResponse();
+		if (status < 200 || status >= 300)
+			throw new IOException("Server answered " + status);
+	}
+
+	private void connect() throws IOException {
+		selector = Selector.open();
+		channel = SocketChannel.open();
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		if (!channel.connect(new InetSocketAddress(host, port))) {
+			await(SelectionKey.OP_CONNECT);
+			channel.finishConnect();
+		}
+	}
+
+	private void disconnect() {
+		try {
+			if (channel != null)
+				channel.close();
+			if (selector != null)
+				selector.close();
+		} catch (IOException e) {
+			// nothing to do about it
+		}
+		channel = null;
+		selector = null;
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.write(buffer) == 0)
+				await(SelectionKey.OP_WRITE);
+		}
+	}
+
+	// Reads the response header and skips the body, returns the status
+	private int readResponse() throws IOException {
+		response.clear();
+		int headerEnd;
+		while ((headerEnd = find(response, "\r\n\r\n")) < 0) {
+			if (!response.hasRemaining())
+				throw new IOException("Response header too long");
+			read();
+		}
+		String head = new String(response.array(), 0, headerEnd, "US-ASCII");
+		String[] lines = head.split("\r\n");
+		String[] statusLine = lines[0].split(" ");
+		if (statusLine.length < 2 || !statusLine[0].startsWith("HTTP/"))
+			throw new IOException("Not an HTTP response: " + lines[0]);
+		int status = Integer.parseInt(statusLine[1]);
+		int contentLength = 0;
+		boolean close = false;
+		for (int i = 1; i < lines.length; i++) {
+			int colon = lines[i].indexOf(':');
+			if (colon < 0)
+				continue;
+			String name = lines[i].substring(0, colon).trim();
+			String value = lines[i].substring(colon + 1).trim();
+			if (name.equalsIgnoreCase("Content-Length"))
+				contentLength = Integer.parseInt(value);
+			else if (name.equalsIgnoreCase("Connection"))
+				close = value.equalsIgnoreCase("close");
+		}
+
+		int body = response.position() - (headerEnd + 4);
+		while (body < contentLength) {
+			response.clear();
+			body += read();
+		}
+		if (close)
+			disconnect();
+		return status;
+	}
+
+	private int read() throws IOException {
+		while (true) {
+			int n = channel.read(response);
+			if (n < 0)
+				throw new IOException("Connection closed by server");
+			if (n > 0)
+				return n;
+			await(SelectionKey.OP_READ);
+		}
+	}
+
+	private void await(int operation) throws IOException {
+		SelectionKey key = channel.register(selector, operation);
+		try {
+			if (selector.select(TIMEOUT_MILLIS) == 0)
+				throw new IOException("Timed out");
+		} finally {
+			key.interestOps(0);
+			selector.selectedKeys().clear();
+		}
+	}
+
+	// Index of text in the bytes buffer holds so far, or -1
+	private static int find(ByteBuffer buffer, String text) {
+		byte[] bytes = buffer.array();
+		int end = buffer.position() - text.length();
+		outer: for (int i = 0; i <= end; i++) {
+			for (int j = 0; j < text.length(); j++)
+				if (bytes[i + j] != text.charAt(j))
+					continue outer;
+			return i;
+		}
+		return -1;
+	}
+}
@@ -1,24 +1,42 @@
 package com.thekemkid.duckgame.game;
 
+import java.nio.ByteBuffer;
+
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 import com.thekemkid.duckgame.game.objects.AbstractGameObject;
 import com.thekemkid.duckgame.game.objects.BunnyHead;
 import com.thekemkid.duckgame.game.objects.Carrot;
 import com.thekemkid.duckgame.game.objects.Clouds;
+import com.thekemkid.duckgame.game.objects.ParallaxLayer;
 import com.thekemkid.duckgame.game.objects.Feather;
 import com.thekemkid.duckgame.game.objects.Goal;
 import com.thekemkid.duckgame.game.objects.GoldCoin;
 import com.thekemkid.duckgame.game.objects.Mountains;
 import com.thekemkid.duckgame.game.objects.Rock;
 import com.thekemkid.duckgame.game.objects.WaterOverlay;
+import com.thekemkid.duckgame.utils.Constants;
+import com.thekemkid.duckgame.utils.EventLog;
+import com.thekemkid.duckgame.utils.GameLog;
+import com.thekemkid.duckgame.utils.SpatialGrid;
+import com.thekemkid.duckgame.utils.UpdateScheduler;
+import com.thekemkid.duckgame.utils.ViewportCuller;
 
 public class Level {
 
 	public static final String TAG = Level.class.getName();
 
+	// How far render bounds may reach past the collision bounds
+	private static final float RENDER_BOUNDS_SLACK = 0.5f;
+
+	private static final int EVENT_UNKNOWN_PIXEL = EventLog.define(TAG,
+			EventLog.ERROR, "Unknown object at x<{}> y<{}>: rgba<{x}>");
+
 	public enum BLOCK_TYPE {
 		EMPTY(0, 0, 0), // black
 		ROCK(0, 255, 0), // green
@@ -46,10 +64,9 @@ public class Level {
 	// objects
 	public Array<Rock> rocks;
 
-	// decoration
-	public Clouds clouds;
-	public Mountains mountains;
-	public WaterOverlay waterOverlay;
+	// decoration, laid out around the view when drawn
+	public Array<ParallaxLayer> backgroundLayers;
+	public Array<ParallaxLayer> foregroundLayers;
 
 	public BunnyHead bunnyHead;
 	public Array<GoldCoin> goldCoins;
@@ -57,12 +74,95 @@ public class Level {
 	public Array<Carrot> carrots;
 	public Goal goal;
 
+	// objects other than the player that move or animate
+	private final UpdateScheduler updateScheduler = new UpdateScheduler();
+
+	// broadphase for collision detection and culling, ids are indices into
+	// the arrays. In a chunked level an evicted object leaves a null slot in
+	// its array, which the next chunk's objects fill again, so the ids of
+	// resident objects never change.
+	public SpatialGrid rockGrid;
+	public SpatialGrid goldCoinGrid;
+	public SpatialGrid featherGrid;
+	public SpatialGrid carrotGrid;
+	// grid query for rendering, reused every frame
+	private final Rectangle renderQuery = new Rectangle();
+	private final IntArray renderIds = new IntArray();
+
+	// level width in pixels/world units
+	private int width;
+	// where the player starts, restored by reset
+	private final Vector2 spawnPoint = new Vector2();
+	// seconds to reach the goal, infinite for no limit
+	private float timeLimit = Constants.LEVEL_TIME_LIMIT;
+
+	// chunked mode: only the chunks around the camera are kept in memory
+	private LevelStreamer streamer;
+	// null slots in the arrays, chunked mode only
+	private final IntArray freeRocks = new IntArray();
+	private final IntArray freeGoldCoins = new IntArray();
+	private final IntArray freeFeathers = new IntArray();
+	private final IntArray freeCarrots = new IntArray();
+	// changes whenever rocks were replaced
+	private int staticVersion;
+
 	public Level(String filename) {
-		init(filename);
+		// load image file that represents the level data
+		Pixmap pixmap = new Pixmap(Gdx.files.internal(filename));
+		int width = pixmap.getWidth();
+		int height = pixmap.getHeight();
+		int[] pixels = new int[width * height];
+		for (int pixelY = 0; pixelY < height; pixelY++)
+			for (int pixelX = 0; pixelX < width; pixelX++)
+				pixels[pixelY * width + pixelX] = pixmap.getPixel(pixelX, pixelY);
+
+		// free memory
+		pixmap.dispose();
+		init(filename, pixels, width, height);
 	}
 
-	private void init(String filename) {
+	// Builds a level from 32-bit RGBA pixels in row-major order, top row
+	// first. Does not need a GL context or the Gdx file system.
+	public Level(String name, int[] pixels, int width, int height) {
+		init(name, pixels, width, height);
+	}
+
+	// Builds a level from data written by LevelFormat.write
+	public Level(String name, ByteBuffer data) {
+		initObjects();
+		int width = LevelFormat.read(data, this);
+		initLevel(name, width);
+	}
+
+	// Chunked level: objects are streamed in around the camera, see
+	// updateStreaming
+	public Level(String name, LevelStreamer streamer) {
+		initObjects();
+		this.streamer = streamer;
+		ChunkSource source = streamer.getSource();
+		bunnyHead = new BunnyHead();
+		source.getSpawnPoint(bunnyHead.position);
+		goal = new Goal();
+		source.getGoalPosition(goal.position);
+		// empty grids the chunks are added to as they come in
+		buildCollisionGrids();
+		streamer.setListener(new LevelStreamer.Listener() {
+			@Override
+			public void chunkAdded(LevelChunk chunk) {
+				addChunk(chunk);
+			}
+
+			@Override
+			public void chunkEvicted(LevelChunk chunk) {
+				removeChunk(chunk);
+			}
+		});
+		streamer.loadNow(bunnyHead.position.x);
+		updateRocks();
+		initLevel(name, source.getWidth());
+	}
 
+	private void initObjects() {
 		// player character
 		bunnyHead = null;
 
@@ -72,20 +172,21 @@ public class Level {
 		feathers = new Array<Feather>();
 		carrots = new Array<Carrot>();
 		goal = null;
+	}
 
-		// load image file that represents the level data
-		Pixmap pixmap = new Pixmap(Gdx.files.internal(filename));
+	private void init(String name, int[] pixels, int width, int height) {
+		initObjects();
 
 		// scan pixels from top-left to bottom-right
 		int lastPixel = -1;
-		for (int pixelY = 0; pixelY < pixmap.getHeight(); pixelY++) {
-			for (int pixelX = 0; pixelX < pixmap.getWidth(); pixelX++) {
+		for (int pixelY = 0; pixelY < height; pixelY++) {
+			for (int pixelX = 0; pixelX < width; pixelX++) {
 				AbstractGameObject obj = null;
 				float offsetHeight = 0;
 				// height grows from bottom to top
-				float baseHeight = pixmap.getHeight() - pixelY;
+				float baseHeight = height - pixelY;
 				// get color of current pixel as 32-bit RGBA value
-				int currentPixel = pixmap.getPixel(pixelX, pixelY);
+				int currentPixel = pixels[pixelY * width + pixelX];
 				// find matching color value to identify block type at (x,y)
 				// point and create the corresponding game object if there is
 				// a match
@@ -141,64 +242,329 @@ public class Level {
 							+ offsetHeight);
 					carrots.add((Carrot) obj);
 				} else { // unknown object/pixel color
-					int r = 0xff & (currentPixel >>> 24); // red color channel
-					int g = 0xff & (currentPixel >>> 16); // green color channel
-					int b = 0xff & (currentPixel >>> 8); // blue color channel
-					int a = 0xff & currentPixel; // alpha channel
-					Gdx.app.error(TAG, "Unknown object at x<" + pixelX + "> y<"
-							+ pixelY + ">: r<" + r + "> g<" + g + "> b<" + b
-							+ "> a<" + a + ">");
+					EventLog.record(EVENT_UNKNOWN_PIXEL, pixelX, pixelY,
+							currentPixel & 0xffffffffL);
 				}
 				lastPixel = currentPixel;
 			}
 		}
+		initLevel(name, width);
+	}
+
+	private void initLevel(String name, int width) {
+		this.width = width;
+		spawnPoint.set(bunnyHead.position);
+
+		// collision grids, chunked levels fill theirs chunk by chunk
+		if (!isChunked())
+			buildCollisionGrids();
+
+		// decoration: distant mountains (dark gray, gray, light gray)
+		// behind, water and clouds in front
+		backgroundLayers = new Array<ParallaxLayer>(Mountains.LAYER_COUNT);
+		for (int layer = 0; layer < Mountains.LAYER_COUNT; layer++)
+			backgroundLayers.add(new Mountains(layer));
+		foregroundLayers = new Array<ParallaxLayer>(2);
+		foregroundLayers.add(new WaterOverlay());
+		foregroundLayers.add(new Clouds());
+
+		scheduleUpdates();
+		storePreviousPositions();
+		GameLog.debug(TAG, "level '" + name + "' loaded");
+	}
+
+	// Puts the level back into its start state without loading it again:
+	// all items become collectable again and the player is back at the spawn
+	// point with no velocity or power-up. Allocates nothing unless the level
+	// is chunked and has to stream in the chunks around the spawn point.
+	public void reset() {
+		bunnyHead.init();
+		bunnyHead.position.set(spawnPoint);
+		bunnyHead.velocity.set(0, 0);
+		bunnyHead.storePreviousPosition();
+		goal.collected = false;
+
+		if (isChunked()) {
+			// the chunks evicted here still remember what was collected,
+			// forget it afterwards
+			streamer.loadNow(spawnPoint.x);
+			streamer.clearCollected();
+			updateRocks();
+			scheduleUpdates();
+		}
+
+		// collected items were taken out of the grids, put them back
+		for (int i = 0; i < goldCoins.size; i++) {
+			GoldCoin goldCoin = goldCoins.get(i);
+			if (goldCoin != null && goldCoin.collected) {
+				goldCoin.collected = false;
+				insert(goldCoinGrid, i, goldCoin);
+			}
+		}
+		for (int i = 0; i < feathers.size; i++) {
+			Feather feather = feathers.get(i);
+			if (feather != null && feather.collected) {
+				feather.collected = false;
+				insert(featherGrid, i, feather);
+			}
+		}
+		for (int i = 0; i < carrots.size; i++) {
+			Carrot carrot = carrots.get(i);
+			if (carrot != null && carrot.collected) {
+				carrot.collected = false;
+				insert(carrotGrid, i, carrot);
+			}
+		}
+	}
 
-		// decoration
-		clouds = new Clouds(pixmap.getWidth());
-		clouds.position.set(0, 2);
-		mountains = new Mountains(pixmap.getWidth());
-		mountains.position.set(-1, -1);
-		waterOverlay = new WaterOverlay(pixmap.getWidth());
-		waterOverlay.position.set(0, -3.75f);
+	public Vector2 getSpawnPoint() {
+		return spawnPoint;
+	}
 
-		// free memory
-		pixmap.dispose();
-		Gdx.app.debug(TAG, "level '" + filename + "' loaded");
+	public int getWidth() {
+		return width;
+	}
+
+	public float getTimeLimit() {
+		return timeLimit;
+	}
+
+	public void setTimeLimit(float timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+
+	public boolean isChunked() {
+		return streamer != null;
+	}
+
+	// Moves the streaming window to x (usually the camera position). Chunks
+	// finished loading in the background are swapped in here.
+	public void updateStreaming(float x) {
+		if (!isChunked() || !streamer.update(x))
+			return;
+		updateRocks();
+		scheduleUpdates();
+	}
+
+	public int getStaticVersion() {
+		return staticVersion;
+	}
+
+	// Puts the objects of a chunk the streamer made resident into the arrays
+	// and grids. Collected items stay out of the grids, rocks are left to
+	// updateRocks.
+	private void addChunk(LevelChunk chunk) {
+		chunk.rockIds.clear();
+		for (int i = 0; i < chunk.rocks.size; i++)
+			chunk.rockIds.add(-1);
+		chunk.goldCoinIds.clear();
+		for (GoldCoin goldCoin : chunk.goldCoins)
+			chunk.goldCoinIds.add(add(goldCoins, freeGoldCoins, goldCoinGrid,
+					goldCoin, !goldCoin.collected));
+		chunk.featherIds.clear();
+		for (Feather feather : chunk.feathers)
+			chunk.featherIds.add(add(feathers, freeFeathers, featherGrid,
+					feather, !feather.collected));
+		chunk.carrotIds.clear();
+		for (Carrot carrot : chunk.carrots)
+			chunk.carrotIds.add(add(carrots, freeCarrots, carrotGrid, carrot,
+					!carrot.collected));
+	}
+
+	// Takes the objects of a chunk the streamer evicts out again
+	private void removeChunk(LevelChunk chunk) {
+		for (int i = 0; i < chunk.rockIds.size; i++) {
+			int id = chunk.rockIds.get(i);
+			if (id >= 0) {
+				remove(rocks, freeRocks, rockGrid, id);
+				staticVersion++;
+			}
+		}
+		for (int i = 0; i < chunk.goldCoinIds.size; i++)
+			remove(goldCoins, freeGoldCoins, goldCoinGrid,
+					chunk.goldCoinIds.get(i));
+		for (int i = 0; i < chunk.featherIds.size; i++)
+			remove(feathers, freeFeathers, featherGrid,
+					chunk.featherIds.get(i));
+		for (int i = 0; i < chunk.carrotIds.size; i++)
+			remove(carrots, freeCarrots, carrotGrid, chunk.carrotIds.get(i));
+		chunk.rockIds.clear();
+		chunk.goldCoinIds.clear();
+		chunk.featherIds.clear();
+		chunk.carrotIds.clear();
+	}
+
+	// Adds and removes rocks so that of a rock listed in several chunks
+	// exactly the copy LevelChunk.ownsRock picks is in the level. Only
+	// touches rocks whose owner changed.
+	private void updateRocks() {
+		int chunkWidth = streamer.getSource().getChunkWidth();
+		int previous = -1;
+		for (LevelChunk chunk : streamer.getResidentChunks()) {
+			for (int i = 0; i < chunk.rocks.size; i++) {
+				Rock rock = chunk.rocks.get(i);
+				int id = chunk.rockIds.get(i);
+				boolean owned = chunk.ownsRock(rock, chunkWidth, previous);
+				if (owned && id < 0) {
+					chunk.rockIds.set(i, add(rocks, freeRocks, rockGrid, rock,
+							true));
+					staticVersion++;
+				} else if (!owned && id >= 0) {
+					remove(rocks, freeRocks, rockGrid, id);
+					chunk.rockIds.set(i, -1);
+					staticVersion++;
+				}
+			}
+			previous = chunk.index;
+		}
+	}
+
+	// Puts obj into a free slot of objects, or at the end, and into grid if
+	// collidable. Returns its id.
+	private <T extends AbstractGameObject> int add(Array<T> objects,
+			IntArray free, SpatialGrid grid, T obj, boolean collidable) {
+		int id;
+		if (free.size > 0) {
+			id = free.pop();
+			objects.set(id, obj);
+		} else {
+			id = objects.size;
+			objects.add(obj);
+		}
+		if (collidable)
+			insert(grid, id, obj);
+		return id;
+	}
+
+	private void remove(Array<? extends AbstractGameObject> objects,
+			IntArray free, SpatialGrid grid, int id) {
+		AbstractGameObject obj = objects.get(id);
+		grid.remove(id, obj.position.x, obj.position.y, obj.bounds.width,
+				obj.bounds.height);
+		objects.set(id, null);
+		free.add(id);
+	}
+
+	private void buildCollisionGrids() {
+		rockGrid = buildCollisionGrid(rockGrid, rocks);
+		goldCoinGrid = buildCollisionGrid(goldCoinGrid, goldCoins);
+		featherGrid = buildCollisionGrid(featherGrid, feathers);
+		carrotGrid = buildCollisionGrid(carrotGrid, carrots);
+	}
+
+	// Refills grid, or a new one if null
+	private SpatialGrid buildCollisionGrid(SpatialGrid grid,
+			Array<? extends AbstractGameObject> objects) {
+		if (grid == null)
+			grid = new SpatialGrid(Constants.COLLISION_GRID_CELL_SIZE);
+		else
+			grid.clear();
+		for (int i = 0; i < objects.size; i++)
+			insert(grid, i, objects.get(i));
+		return grid;
+	}
+
+	private void insert(SpatialGrid grid, int id, AbstractGameObject obj) {
+		grid.insert(id, obj.position.x, obj.position.y, obj.bounds.width,
+				obj.bounds.height);
+	}
+
+	public void render(SpriteBatch batch, ViewportCuller culler) {
+		renderBackground(batch, culler);
+		renderStatic(batch, culler);
+		renderObjects(batch, culler);
+	}
+
+	// Looks the objects near the view up in their collision grid, so the
+	// cost follows what is on screen and not the size of the level. Objects
+	// not in a cell near the view are counted as culled without a look.
+	private void renderVisible(SpriteBatch batch, ViewportCuller culler,
+			SpatialGrid grid, Array<? extends AbstractGameObject> objects,
+			IntArray free) {
+		Rectangle view = culler.getView();
+		// rocks draw their edges a little outside their collision bounds
+		renderQuery.set(view.x - RENDER_BOUNDS_SLACK, view.y
+				- RENDER_BOUNDS_SLACK, view.width + 2 * RENDER_BOUNDS_SLACK,
+				view.height + 2 * RENDER_BOUNDS_SLACK);
+		grid.query(renderQuery, renderIds);
+		for (int i = 0; i < renderIds.size; i++)
+			objects.get(renderIds.get(i)).render(batch, culler);
+		culler.addCulled(objects.size - free.size - renderIds.size);
+	}
+
+	public void renderBackground(SpriteBatch batch, ViewportCuller culler) {
+		for (ParallaxLayer layer : backgroundLayers)
+			// Draw Mountains
+			layer.render(batch, culler);
+	}
+
+	// Rocks never move, see StaticGeometryCache
+	public void renderStatic(SpriteBatch batch, ViewportCuller culler) {
+		// Draw Rocks
+		renderVisible(batch, culler, rockGrid, rocks, freeRocks);
+	}
+
+	public void renderObjects(SpriteBatch batch, ViewportCuller culler) {
+		// Draw Gold Coins
+		renderVisible(batch, culler, goldCoinGrid, goldCoins, freeGoldCoins);
+		// Draw Feathers
+		renderVisible(batch, culler, featherGrid, feathers, freeFeathers);
+		// Draw Carrots
+		renderVisible(batch, culler, carrotGrid, carrots,
+				freeCarrots);
+
+		goal.render(batch, culler); // Draw Goal
+		bunnyHead.render(batch, culler); // Draw Player Character
+
+		for (ParallaxLayer layer : foregroundLayers)
+			// Draw Water Overlay and Clouds
+			layer.render(batch, culler);
+	}
+
+	// Only the player and scheduled objects move, the others keep their
+	// spawn position
+	public void storePreviousPositions() {
+		bunnyHead.storePreviousPosition();
+		updateScheduler.storePreviousPositions();
+	}
+
+	public void beginInterpolation(float alpha) {
+		bunnyHead.beginInterpolation(alpha);
+		updateScheduler.beginInterpolation(alpha);
+	}
+
+	public void endInterpolation() {
+		bunnyHead.endInterpolation();
+		updateScheduler.endInterpolation();
 	}
 
-	public void render(SpriteBatch batch) {
-		mountains.render(batch); // Draw Mountains
-		for (Rock rock : rocks)
-			// Draw Rocks
-			rock.render(batch);
-		for (GoldCoin goldCoin : goldCoins)
-			// Draw Gold Coins
-			goldCoin.render(batch);
-		for (Feather feather : feathers)
-			// Draw Feathers
-			feather.render(batch);
-		for (Carrot carrot : carrots)
-			// Draw Carrots
-			carrot.render(batch);
+	// Hands the objects that move to the update scheduler, static ones are
+	// never updated.
+	private void scheduleUpdates() {
+		updateScheduler.clear();
+		schedule(rocks);
+		schedule(goldCoins);
+		schedule(feathers);
+		schedule(carrots);
+		if (goal.isDynamic())
+			updateScheduler.add(goal, true);
+	}
 
-		goal.render(batch); // Draw Goal
-		bunnyHead.render(batch); // Draw Player Character
+	private void schedule(Array<? extends AbstractGameObject> objects) {
+		for (int i = 0; i < objects.size; i++) {
+			AbstractGameObject obj = objects.get(i);
+			if (obj != null && obj.isDynamic())
+				updateScheduler.add(obj, true);
+		}
+	}
 
-		waterOverlay.render(batch); // Draw Water Overlay
-		clouds.render(batch); // Draw Clouds
+	public UpdateScheduler getUpdateScheduler() {
+		return updateScheduler;
 	}
 
 	public void update(float deltaTime) {
 		bunnyHead.update(deltaTime);
-		for (Rock rock : rocks)
-			rock.update(deltaTime);
-		for (GoldCoin goldCoin : goldCoins)
-			goldCoin.update(deltaTime);
-		for (Feather feather : feathers)
-			feather.update(deltaTime);
-		for (Carrot carrot : carrots)
-			carrot.update(deltaTime);
-		goal.update(deltaTime);
-		clouds.update(deltaTime);
+		// the camera follows the player, so this wakes what comes into view
+		updateScheduler.update(deltaTime, bunnyHead.position.x);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,232 @@
+package com.thekemkid.duckgame.game;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongMap;
+import com.thekemkid.duckgame.game.objects.AbstractGameObject;
+import com.thekemkid.duckgame.game.objects.BunnyHead;
+import com.thekemkid.duckgame.game.objects.BunnyHead.JUMP_STATE;
+import com.thekemkid.duckgame.game.objects.Rock;
+import com.thekemkid.duckgame.utils.Constants;
+import com.thekemkid.duckgame.utils.SpatialGrid;
+
+// Finds out which rocks, items and whether the goal can be reached from the
+// spawn point, for checking levels before they ship. Moves a probe bunny
+// with the physics and rock collision of WorldSimulation through a
+// breadth-first search over moves: walk a few ticks, or jump (holding the
+// key for a number of ticks) and steer until landing. Landing spots are
+// the search nodes, merged when they are close enough.
+//
+// Approximations: items are never used up, so a feather can be picked up
+// again on every path that passes it, and the level time limit is ignored.
+// The level is only read, so one level may be analyzed by several threads
+// as long as each has its own LevelAnalyzer.
+public class LevelAnalyzer {
+
+	public static final String TAG = LevelAnalyzer.class.getName();
+
+	// Grid the landing spots are merged on, in world units
+	private static final float NODE_RESOLUTION = 0.5f;
+	// Ticks per walk move, long enough to leave the node it starts on
+	private static final int WALK_TICKS = 10;
+	// Ticks the jump key is held, shorter presses jump as high as 6 ticks.
+	// Long presses only differ with a feather.
+	private static final int[] JUMP_TICKS = { 6, 12, 18 };
+	private static final int[] FLY_TICKS = { 36, 72, 144 };
+	// Gives up on moves that never land
+	private static final int MAX_MOVE_TICKS = 10 * Constants.TICK_RATE;
+	private static final float DEATH_HEIGHT = -5;
+	// A rock counts as reached when the probe gets this close to it
+	private static final float TOUCH_DISTANCE = 0.01f;
+
+	public static class Result {
+		public boolean[] rocks;
+		public boolean[] goldCoins;
+		public boolean[] feathers;
+		public boolean[] carrots;
+		public boolean goal;
+		// search effort
+		public int nodes;
+		public long ticks;
+	}
+
+	private static class Node {
+		float x, y;
+		float velocityX, velocityY;
+		JUMP_STATE jumpState;
+		float timeJumping;
+		float timeLeftFeatherPowerup;
+	}
+
+	private final float deltaTime = 1.0f / Constants.TICK_RATE;
+	private final BunnyHead probe = new BunnyHead();
+	private final InputState input = new InputState();
+	private final Rectangle r1 = new Rectangle();
+	private final Rectangle r2 = new Rectangle();
+	private final IntArray candidates = new IntArray();
+	private final RockCollider rockCollider = new RockCollider();
+
+	// nodes[0, nodeCount) are in use; nodes[head, nodeCount) still queued
+	private final Array<Node> nodes = new Array<Node>();
+	private int nodeCount;
+	private final LongMap<Node> visited = new LongMap<Node>();
+
+	private Level level;
+	private Result result;
+	// nothing below this can be landed on
+	private float lowestRock;
+
+	// The level must be freshly loaded: collected items are not in the
+	// collision grids any more
+	public Result analyze(Level level) {
+		if (level.isChunked())
+			throw new IllegalArgumentException("Chunked levels can not be"
+					+ " analyzed, load the whole level");
+		this.level = level;
+		result = new Result();
+		result.rocks = new boolean[level.rocks.size];
+		result.goldCoins = new boolean[level.goldCoins.size];
+		result.feathers = new boolean[level.feathers.size];
+		result.carrots = new boolean[level.carrots.size];
+
+		lowestRock = DEATH_HEIGHT;
+		if (level.rocks.size > 0) {
+			lowestRock = Float.MAX_VALUE;
+			for (Rock rock : level.rocks)
+				lowestRock = Math.min(lowestRock, rock.position.y);
+		}
+
+		nodeCount = 0;
+		visited.clear();
+		probe.init();
+		probe.position.set(level.getSpawnPoint());
+		probe.velocity.set(0, 0);
+		addNode();
+
+		for (int head = 0; head < nodeCount; head++) {
+			Node node = nodes.get(head);
+			// walk
+			move(node, -1, 0, -1);
+			move(node, 1, 0, 1);
+			// jump, and steer the same way or another once the key is let go
+			boolean feather = node.timeLeftFeatherPowerup > 0;
+			for (int dir = -1; dir <= 1; dir++) {
+				for (int airDir = -1; airDir <= 1; airDir++) {
+					for (int jumpTicks : JUMP_TICKS)
+						move(node, dir, jumpTicks, airDir);
+					if (feather)
+						for (int jumpTicks : FLY_TICKS)
+							move(node, dir, jumpTicks, airDir);
+				}
+			}
+		}
+
+		result.nodes = nodeCount;
+		Result result = this.result;
+		this.result = null;
+		this.level = null;
+		return result;
+	}
+
+	// Runs one move from node and queues the spot it ends on
+	private void move(Node node, int dir, int jumpTicks, int airDir) {
+		load(node);
+		int holdTicks = jumpTicks > 0 ? jumpTicks : WALK_TICKS;
+		for (int tick = 0; tick < MAX_MOVE_TICKS; tick++) {
+			int d = tick < holdTicks ? dir : airDir;
+			input.left = d < 0;
+			input.right = d > 0;
+			input.jump = tick < jumpTicks;
+			WorldSimulation.applyInput(probe, input);
+			probe.storePreviousPosition();
+			probe.update(deltaTime);
+			result.ticks++;
+			testCollisions();
+
+			if (probe.position.y < DEATH_HEIGHT)
+				return;
+			// falling past every rock without a feather to fly back up
+			if (probe.position.y < lowestRock && probe.velocity.y <= 0
+					&& !probe.hasFeatherPowerup())
+				return;
+			if (probe.jumpState == JUMP_STATE.GROUNDED && tick + 1 >= holdTicks) {
+				addNode();
+				return;
+			}
+		}
+	}
+
+	// Same tests as WorldSimulation.testCollisions, marking what was touched
+	private void testCollisions() {
+		rockCollider.move(level, probe, probe.previousPosition.x,
+				probe.previousPosition.y);
+
+		// rocks the probe ends up touching
+		r1.set(probe.position.x - TOUCH_DISTANCE, probe.position.y
+				- TOUCH_DISTANCE, probe.bounds.width + 2 * TOUCH_DISTANCE,
+				probe.bounds.height + 2 * TOUCH_DISTANCE);
+		touch(level.rockGrid, level.rocks, result.rocks);
+
+		WorldSimulation.sweptBounds(probe, r1);
+		touch(level.goldCoinGrid, level.goldCoins, result.goldCoins);
+		if (touch(level.featherGrid, level.feathers, result.feathers))
+			probe.setFeatherPowerup(true);
+		touch(level.carrotGrid, level.carrots, result.carrots);
+
+		if (!result.goal && overlaps(level.goal))
+			result.goal = true;
+	}
+
+	// Marks the objects overlapping r1, returns true if there was one
+	private boolean touch(SpatialGrid grid,
+			Array<? extends AbstractGameObject> objects, boolean[] reached) {
+		boolean touched = false;
+		grid.query(r1, candidates);
+		for (int i = 0; i < candidates.size; i++) {
+			int index = candidates.get(i);
+			if (overlaps(objects.get(index))) {
+				reached[index] = true;
+				touched = true;
+			}
+		}
+		return touched;
+	}
+
+	private boolean overlaps(AbstractGameObject obj) {
+		r2.set(obj.position.x, obj.position.y, obj.bounds.width,
+				obj.bounds.height);
+		return r1.overlaps(r2);
+	}
+
+	private void load(Node node) {
+		probe.position.set(node.x, node.y);
+		probe.velocity.set(node.velocityX, node.velocityY);
+		probe.jumpState = node.jumpState;
+		probe.timeJumping = node.timeJumping;
+		probe.timeLeftFeatherPowerup = node.timeLeftFeatherPowerup;
+		probe.hasFeatherPowerup = node.timeLeftFeatherPowerup > 0;
+	}
+
+	// Queues the probe state unless a close one was queued before
+	private void addNode() {
+		long key = (long) Math.floor(probe.position.x / NODE_RESOLUTION) << 32
+				| ((long) Math.floor(probe.position.y / NODE_RESOLUTION) & 0xFFFF) << 8
+				| (int) Math.ceil(probe.timeLeftFeatherPowerup) & 0xFF;
+		if (visited.containsKey(key))
+			return;
+
+		if (nodeCount == nodes.size)
+			nodes.add(new Node());
+		Node node = nodes.get(nodeCount++);
+		node.x = probe.position.x;
+		node.y = probe.position.y;
+		node.velocityX = probe.velocity.x;
+		node.velocityY = probe.velocity.y;
+		node.jumpState = probe.jumpState;
+		node.timeJumping = probe.timeJumping;
+		node.timeLeftFeatherPowerup = probe.hasFeatherPowerup() ? probe.timeLeftFeatherPowerup
+				: 0;
+		visited.put(key, node);
+	}
+}
@@ -0,0 +1,39 @@
+package com.thekemkid.duckgame.game;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.thekemkid.duckgame.game.objects.Carrot;
+import com.thekemkid.duckgame.game.objects.Feather;
+import com.thekemkid.duckgame.game.objects.GoldCoin;
+import com.thekemkid.duckgame.game.objects.Rock;
+
+// Objects of a range of level columns, loaded and evicted as a unit by the
+// LevelStreamer. A rock may be listed in every chunk it reaches into, Level
+// keeps the copy of the first resident one (see ownsRock).
+public class LevelChunk {
+
+	public final int index;
+	public final Array<Rock> rocks = new Array<Rock>();
+	public final Array<GoldCoin> goldCoins = new Array<GoldCoin>();
+	public final Array<Feather> feathers = new Array<Feather>();
+	public final Array<Carrot> carrots = new Array<Carrot>();
+
+	// Set by Level while the chunk is resident: index of each object in the
+	// level's arrays, -1 for a rock whose copy in another chunk is used
+	final IntArray rockIds = new IntArray();
+	final IntArray goldCoinIds = new IntArray();
+	final IntArray featherIds = new IntArray();
+	final IntArray carrotIds = new IntArray();
+
+	public LevelChunk(int index) {
+		this.index = index;
+	}
+
+	// Whether this chunk's copy of rock is the one to use, given the index
+	// of the resident chunk before it (-1 for none): the chunk rock starts
+	// in, or the first resident one after it
+	public boolean ownsRock(Rock rock, int chunkWidth, int previousIndex) {
+		return previousIndex < MathUtils.floor(rock.position.x / chunkWidth);
+	}
+}
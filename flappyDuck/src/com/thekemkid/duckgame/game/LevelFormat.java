@@ -0,0 +1,255 @@
+package com.thekemkid.duckgame.game;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.zip.CRC32;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.thekemkid.duckgame.game.objects.AbstractGameObject;
+import com.thekemkid.duckgame.game.objects.BunnyHead;
+import com.thekemkid.duckgame.game.objects.Carrot;
+import com.thekemkid.duckgame.game.objects.Feather;
+import com.thekemkid.duckgame.game.objects.Goal;
+import com.thekemkid.duckgame.game.objects.GoldCoin;
+import com.thekemkid.duckgame.game.objects.Rock;
+
+// Compiled binary level format. Stores the final object positions of a
+// parsed level so loading is a single walk over the buffer:
+//
+// int magic, int version, int sourceSize, int sourceCrc, int width
+// float spawnX, float spawnY, float goalX, float goalY
+// int rockCount, rockCount * (float x, float y, int length),
+//     rockCount * int rock index
+// int entityCount, entityCount * (byte type, float x, float y),
+//     entityCount * int entity index
+//
+// Records keep the order of the level image (row by row, entities grouped by
+// type), so a level loaded from either file gets the same object arrays and
+// the same simulation. Each index lists the record numbers sorted by x
+// (stable), so the records of a range of columns can be found with a binary
+// search (see CompiledChunkSource). sourceSize and sourceCrc (CRC32)
+// describe the level image the file was compiled from, see isStale.
+public class LevelFormat {
+
+	public static final String TAG = LevelFormat.class.getName();
+
+	public static final int MAGIC = 0x46444C56; // "FDLV"
+	public static final int VERSION = 4;
+	// File extension of compiled levels, replacing ".png"
+	public static final String EXTENSION = ".lvl";
+
+	public static final byte ENTITY_GOLD_COIN = 0;
+	public static final byte ENTITY_FEATHER = 1;
+	public static final byte ENTITY_CARROT = 2;
+
+	// Byte offsets and record sizes
+	static final int ROCK_COUNT_OFFSET = 36;
+	static final int ROCK_SIZE = 12;
+	static final int ENTITY_SIZE = 9;
+	static final int INDEX_SIZE = 4;
+
+	private LevelFormat() {
+	}
+
+	// Name of the compiled file for a level image, e.g.
+	// "levels/level-01.png" -> "levels/level-01.lvl"
+	public static String compiledName(String filename) {
+		int dot = filename.lastIndexOf('.');
+		return (dot < 0 ? filename : filename.substring(0, dot)) + EXTENSION;
+	}
+
+	// True if compiled was not written from the current contents of image, so
+	// it does not show the level as it is now. Compares the size and checksum
+	// of the image with the ones kept in the header; modification times do
+	// not survive a checkout. A compiled file in an older version counts as
+	// stale as well. Without the image compiled is all there is and counts as
+	// up to date.
+	public static boolean isStale(FileHandle compiled, FileHandle image) {
+		if (!image.exists())
+			return false;
+		DataInputStream in = new DataInputStream(compiled.read());
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return true;
+			byte[] source = image.readBytes();
+			return in.readInt() != source.length
+					|| in.readInt() != checksum(source);
+		} catch (IOException e) {
+			return true;
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	private static int checksum(byte[] bytes) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		return (int) crc.getValue();
+	}
+
+	// Writes level, compiled from the level image source
+	public static void write(Level level, FileHandle source,
+			OutputStream output) throws IOException {
+		byte[] sourceBytes = source.readBytes();
+		if (level.bunnyHead == null || level.goal == null)
+			throw new GdxRuntimeException(
+					"Level needs a player spawn point and a goal");
+		DataOutputStream out = new DataOutputStream(output);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(sourceBytes.length);
+		out.writeInt(checksum(sourceBytes));
+		out.writeInt(level.getWidth());
+		out.writeFloat(level.bunnyHead.position.x);
+		out.writeFloat(level.bunnyHead.position.y);
+		out.writeFloat(level.goal.position.x);
+		out.writeFloat(level.goal.position.y);
+
+		out.writeInt(level.rocks.size);
+		for (Rock rock : level.rocks) {
+			out.writeFloat(rock.position.x);
+			out.writeFloat(rock.position.y);
+			out.writeInt(rock.getLength());
+		}
+		writeIndex(level.rocks, out);
+
+		Array<AbstractGameObject> entities = new Array<AbstractGameObject>();
+		entities.addAll(level.goldCoins);
+		entities.addAll(level.feathers);
+		entities.addAll(level.carrots);
+		out.writeInt(entities.size);
+		for (AbstractGameObject entity : entities) {
+			if (entity instanceof GoldCoin)
+				out.writeByte(ENTITY_GOLD_COIN);
+			else if (entity instanceof Feather)
+				out.writeByte(ENTITY_FEATHER);
+			else
+				out.writeByte(ENTITY_CARROT);
+			out.writeFloat(entity.position.x);
+			out.writeFloat(entity.position.y);
+		}
+		writeIndex(entities, out);
+		out.flush();
+	}
+
+	// Writes the positions of objects in the array, sorted by x
+	private static void writeIndex(
+			final Array<? extends AbstractGameObject> objects,
+			DataOutputStream out) throws IOException {
+		Integer[] order = new Integer[objects.size];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		// stable, equal x keep their record order
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Float.compare(objects.get(a).position.x,
+						objects.get(b).position.x);
+			}
+		});
+		for (Integer i : order)
+			out.writeInt(i);
+	}
+
+	// Fills the (empty) object arrays of level from data and returns the
+	// level width
+	static int read(ByteBuffer data, Level level) {
+		checkHeader(data);
+		int width = data.getInt();
+
+		level.bunnyHead = new BunnyHead();
+		level.bunnyHead.position.set(data.getFloat(), data.getFloat());
+		level.goal = new Goal();
+		level.goal.position.set(data.getFloat(), data.getFloat());
+
+		int rockCount = data.getInt();
+		level.rocks.ensureCapacity(rockCount);
+		for (int i = 0; i < rockCount; i++) {
+			Rock rock = new Rock();
+			rock.position.set(data.getFloat(), data.getFloat());
+			rock.setLength(data.getInt());
+			level.rocks.add(rock);
+		}
+		skipIndex(data, rockCount);
+
+		int entityCount = data.getInt();
+		for (int i = 0; i < entityCount; i++) {
+			byte type = data.get();
+			float x = data.getFloat();
+			float y = data.getFloat();
+			switch (type) {
+			case ENTITY_GOLD_COIN:
+				GoldCoin goldCoin = new GoldCoin();
+				goldCoin.position.set(x, y);
+				level.goldCoins.add(goldCoin);
+				break;
+			case ENTITY_FEATHER:
+				Feather feather = new Feather();
+				feather.position.set(x, y);
+				level.feathers.add(feather);
+				break;
+			case ENTITY_CARROT:
+				Carrot carrot = new Carrot();
+				carrot.position.set(x, y);
+				level.carrots.add(carrot);
+				break;
+			default:
+				throw new GdxRuntimeException("Unknown entity type " + type);
+			}
+		}
+		skipIndex(data, entityCount);
+		return width;
+	}
+
+	// The index is only needed to look up columns
+	private static void skipIndex(ByteBuffer data, int count) {
+		data.position(data.position() + count * INDEX_SIZE);
+	}
+
+	// Reads and validates magic and version at the buffer's position and
+	// skips the source size and checksum
+	static void checkHeader(ByteBuffer data) {
+		if (data.getInt() != MAGIC)
+			throw new GdxRuntimeException("Not a compiled level");
+		int version = data.getInt();
+		if (version != VERSION)
+			throw new GdxRuntimeException("Unsupported level version "
+					+ version + ", recompile the level");
+		data.position(data.position() + 8);
+	}
+
+	// Memory-maps the file when it exists on the file system. Files that are
+	// only reachable through the classpath or an Android APK are read into a
+	// heap buffer instead.
+	public static ByteBuffer map(FileHandle file) {
+		File f = file.file();
+		if (f.isFile()) {
+			try {
+				RandomAccessFile raf = new RandomAccessFile(f, "r");
+				try {
+					FileChannel channel = raf.getChannel();
+					return channel.map(FileChannel.MapMode.READ_ONLY, 0,
+							channel.size());
+				} finally {
+					raf.close();
+				}
+			} catch (IOException e) {
+				// fall back to reading through the file handle
+			}
+		}
+		return ByteBuffer.wrap(file.readBytes());
+	}
+}
@@ -0,0 +1,9 @@
+package com.thekemkid.duckgame.game;
+
+// Supplies the levels played by a WorldSimulation.
+public interface LevelLoader {
+
+	// Returns the level for index 0 <= index < Constants.NUM_LEVELS in its
+	// start state. May return an earlier instance again after Level.reset()
+	public Level load(int index);
+}
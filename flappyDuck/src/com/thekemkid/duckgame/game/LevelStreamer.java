@@ -0,0 +1,239 @@
+package com.thekemkid.duckgame.game;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.IntSet;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncTask;
+
+// Keeps the chunks around a focus point (the camera) resident. Chunks ahead
+// are loaded on a background thread and chunks behind are evicted, so memory
+// use only depends on the window size and not on the level length.
+// Evicted chunks are handed back to the source and loaded again when
+// revisited. Which of their items were collected is kept per chunk index and
+// applied when the chunk comes back, so pickups cannot be collected twice.
+//
+// Loaded chunks reach the game thread through a double buffer: the worker
+// adds them to one array, update() swaps the arrays under the lock and takes
+// the chunks in from the other one. The game thread never waits for a load
+// and holds the lock only for the swap.
+public class LevelStreamer {
+
+	public static final String TAG = LevelStreamer.class.getName();
+
+	// Shared by all levels; loading is I/O and allocation bound
+	private static final AsyncExecutor executor = new AsyncExecutor(1);
+
+	// Told on the game thread when a chunk becomes resident or is evicted,
+	// the latter before the chunk goes back to the source
+	public interface Listener {
+		public void chunkAdded(LevelChunk chunk);
+
+		public void chunkEvicted(LevelChunk chunk);
+	}
+
+	private final ChunkSource source;
+	private final int chunksBehind;
+	private final int chunksAhead;
+	private Listener listener;
+
+	// Resident chunks sorted by index
+	private final Array<LevelChunk> resident = new Array<LevelChunk>();
+	// Submitted to the worker and not taken in yet
+	private final IntSet pending = new IntSet();
+	// Collected items of evicted chunks by chunk index: gold coins, then
+	// feathers, then carrots, in chunk order
+	private final IntMap<Bits> collected = new IntMap<Bits>();
+
+	// guarded by lock: the worker's side of the double buffer, and the first
+	// load that failed
+	private final Object lock = new Object();
+	private Array<LevelChunk> loaded = new Array<LevelChunk>();
+	private GdxRuntimeException failure;
+	// game thread's side
+	private Array<LevelChunk> arrived = new Array<LevelChunk>();
+
+	public LevelStreamer(ChunkSource source, int chunksBehind, int chunksAhead) {
+		this.source = source;
+		this.chunksBehind = chunksBehind;
+		this.chunksAhead = chunksAhead;
+	}
+
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
+	public ChunkSource getSource() {
+		return source;
+	}
+
+	// Number of columns covered by a full window of resident chunks
+	public int getWindowWidth() {
+		return (chunksBehind + 1 + chunksAhead) * source.getChunkWidth();
+	}
+
+	public Array<LevelChunk> getResidentChunks() {
+		return resident;
+	}
+
+	// Forgets which items were collected, for a restart of the level. Chunks
+	// already resident keep their state.
+	public void clearCollected() {
+		collected.clear();
+	}
+
+	// Loads the window around x on the calling thread, for the first frame
+	// or a restart, and evicts the chunks outside it
+	public void loadNow(float x) {
+		int first = firstChunk(x), last = lastChunk(x);
+		evict(first, last);
+		for (int i = first; i <= last; i++) {
+			if (!isResident(i))
+				addResident(source.load(i));
+		}
+	}
+
+	// Moves the window to x. Returns true if the resident chunks changed.
+	public boolean update(float x) {
+		int first = firstChunk(x), last = lastChunk(x);
+		boolean changed = evict(first, last);
+
+		synchronized (lock) {
+			if (failure != null)
+				throw failure;
+			Array<LevelChunk> swap = loaded;
+			loaded = arrived;
+			arrived = swap;
+		}
+		for (int i = 0; i < arrived.size; i++) {
+			LevelChunk chunk = arrived.get(i);
+			pending.remove(chunk.index);
+			// the window moved on, or loadNow got there first
+			if (chunk.index < first || chunk.index > last
+					|| isResident(chunk.index)) {
+				source.unload(chunk);
+				continue;
+			}
+			addResident(chunk);
+			changed = true;
+		}
+		arrived.clear();
+
+		for (int i = first; i <= last; i++) {
+			if (!isResident(i) && !pending.contains(i)) {
+				pending.add(i);
+				submit(i);
+			}
+		}
+		return changed;
+	}
+
+	// Evicts the chunks out of the window from first to last, returns true
+	// if there were any
+	private boolean evict(int first, int last) {
+		boolean evicted = false;
+		for (int i = resident.size - 1; i >= 0; i--) {
+			LevelChunk chunk = resident.get(i);
+			if (chunk.index < first || chunk.index > last) {
+				resident.removeIndex(i);
+				if (listener != null)
+					listener.chunkEvicted(chunk);
+				saveCollected(chunk);
+				source.unload(chunk);
+				evicted = true;
+			}
+		}
+		return evicted;
+	}
+
+	private void submit(final int index) {
+		executor.submit(new AsyncTask<Void>() {
+			@Override
+			public Void call() throws Exception {
+				try {
+					LevelChunk chunk = source.load(index);
+					synchronized (lock) {
+						loaded.add(chunk);
+					}
+				} catch (RuntimeException e) {
+					synchronized (lock) {
+						if (failure == null)
+							failure = new GdxRuntimeException(
+									"Could not load chunk " + index, e);
+					}
+				}
+				return null;
+			}
+		});
+	}
+
+	private boolean isResident(int index) {
+		for (int i = 0; i < resident.size; i++)
+			if (resident.get(i).index == index)
+				return true;
+		return false;
+	}
+
+	private void saveCollected(LevelChunk chunk) {
+		Bits bits = collected.get(chunk.index);
+		if (bits != null)
+			bits.clear();
+		int bit = 0;
+		for (int i = 0; i < chunk.goldCoins.size; i++, bit++)
+			if (chunk.goldCoins.get(i).collected)
+				bits = setBit(chunk.index, bits, bit);
+		for (int i = 0; i < chunk.feathers.size; i++, bit++)
+			if (chunk.feathers.get(i).collected)
+				bits = setBit(chunk.index, bits, bit);
+		for (int i = 0; i < chunk.carrots.size; i++, bit++)
+			if (chunk.carrots.get(i).collected)
+				bits = setBit(chunk.index, bits, bit);
+	}
+
+	private Bits setBit(int index, Bits bits, int bit) {
+		if (bits == null) {
+			bits = new Bits();
+			collected.put(index, bits);
+		}
+		bits.set(bit);
+		return bits;
+	}
+
+	private void restoreCollected(LevelChunk chunk) {
+		Bits bits = collected.get(chunk.index);
+		if (bits == null)
+			return;
+		int bit = 0;
+		for (int i = 0; i < chunk.goldCoins.size; i++, bit++)
+			chunk.goldCoins.get(i).collected = bits.get(bit);
+		for (int i = 0; i < chunk.feathers.size; i++, bit++)
+			chunk.feathers.get(i).collected = bits.get(bit);
+		for (int i = 0; i < chunk.carrots.size; i++, bit++)
+			chunk.carrots.get(i).collected = bits.get(bit);
+	}
+
+	private void addResident(LevelChunk chunk) {
+		restoreCollected(chunk);
+		int i = 0;
+		while (i < resident.size && resident.get(i).index < chunk.index)
+			i++;
+		resident.insert(i, chunk);
+		if (listener != null)
+			listener.chunkAdded(chunk);
+	}
+
+	private int firstChunk(float x) {
+		return Math.max(0, chunkAt(x) - chunksBehind);
+	}
+
+	private int lastChunk(float x) {
+		return Math.min(source.getChunkCount() - 1, chunkAt(x) + chunksAhead);
+	}
+
+	private int chunkAt(float x) {
+		return MathUtils.floor(Math.max(0, x) / source.getChunkWidth());
+	}
+}
@@ -0,0 +1,54 @@
+package com.thekemkid.duckgame.game;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.utils.Disposable;
+import com.thekemkid.duckgame.utils.Constants;
+
+// Shown while the assets load: a progress bar across the middle of the
+// screen. It is drawn with a ShapeRenderer, so it needs no texture or font
+// and is up on the first frame.
+public class LoadingScreen implements Disposable {
+
+	private static final float BAR_WIDTH = 400;
+	private static final float BAR_HEIGHT = 20;
+	// Border around the filled part
+	private static final float BORDER = 3;
+
+	private final OrthographicCamera camera;
+	private final ShapeRenderer shapeRenderer;
+
+	public LoadingScreen() {
+		camera = new OrthographicCamera(Constants.VIEWPORT_GUI_WIDTH,
+				Constants.VIEWPORT_GUI_HEIGHT);
+		shapeRenderer = new ShapeRenderer();
+	}
+
+	public void resize(int width, int height) {
+		camera.viewportHeight = Constants.VIEWPORT_GUI_HEIGHT;
+		camera.viewportWidth = (Constants.VIEWPORT_GUI_HEIGHT / (float) height)
+				* (float) width;
+		camera.position.set(0, 0, 0);
+		camera.update();
+	}
+
+	// progress from 0 to 1
+	public void render(float progress) {
+		float x = -BAR_WIDTH / 2;
+		float y = -BAR_HEIGHT / 2;
+		shapeRenderer.setProjectionMatrix(camera.combined);
+		shapeRenderer.begin(ShapeType.Filled);
+		shapeRenderer.setColor(0.2f, 0.2f, 0.2f, 1);
+		shapeRenderer.rect(x - BORDER, y - BORDER, BAR_WIDTH + 2 * BORDER,
+				BAR_HEIGHT + 2 * BORDER);
+		shapeRenderer.setColor(1, 1, 1, 1);
+		shapeRenderer.rect(x, y, BAR_WIDTH * progress, BAR_HEIGHT);
+		shapeRenderer.end();
+	}
+
+	@Override
+	public void dispose() {
+		shapeRenderer.dispose();
+	}
+}
@@ -0,0 +1,283 @@
+package com.thekemkid.duckgame.game;
+
+import java.util.Random;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Pool;
+import com.thekemkid.duckgame.game.objects.AbstractGameObject;
+import com.thekemkid.duckgame.game.objects.Carrot;
+import com.thekemkid.duckgame.game.objects.Feather;
+import com.thekemkid.duckgame.game.objects.GoldCoin;
+import com.thekemkid.duckgame.game.objects.Rock;
+
+// Endless level made up chunk by chunk from a seed, for streaming with a
+// LevelStreamer. A chunk only depends on the seed and its index, so it comes
+// out the same whenever it is generated again after being evicted.
+//
+// The ground is a row of rock platforms with gaps in between. A platform is
+// at most MAX_STEP_UP higher than the one before, so each can be jumped onto,
+// and the height a chunk starts at is picked from the seed too, which lets
+// the end of the chunk before lead up to it without knowing its content.
+// Coins hang over platforms and gaps in arcs, now and then there is a
+// feather and rarely a carrot. Platforms get shorter and gaps wider over the
+// first RAMP_CHUNKS chunks.
+//
+// The objects come from pools and go back into them when the streamer
+// unloads a chunk, so running on for ever does not keep allocating. load
+// runs on the worker and unload on the game thread, the pools are locked.
+public class ProceduralChunkSource implements ChunkSource {
+
+	public static final String TAG = ProceduralChunkSource.class.getName();
+
+	// Columns in all: hours of running, endless in practice, while float
+	// positions stay exact to well below a pixel
+	private static final int WIDTH = 1 << 16;
+	// Platform heights are counted in steps of a quarter rock like in the
+	// level images, from 0 to MAX_HEIGHT
+	private static final float HEIGHT_STEP = 0.375f;
+	private static final float BASE_HEIGHT = -1.0f;
+	private static final int MAX_HEIGHT = 8;
+	private static final int START_HEIGHT = 4;
+	// Chunks start between START_HEIGHT - BOUNDARY_RANGE and
+	// START_HEIGHT + BOUNDARY_RANGE
+	private static final int BOUNDARY_RANGE = 2;
+	private static final int MAX_STEP_UP = 2;
+	private static final int MAX_STEP_DOWN = 3;
+	private static final int MIN_LENGTH = 2;
+	private static final int MAX_LENGTH = 8;
+	// MAX_LENGTH once ramped up
+	private static final int HARD_MAX_LENGTH = 4;
+	private static final int MAX_GAP = 3;
+	// Widest gap before a higher platform
+	private static final int MAX_GAP_UP = 2;
+	// Columns from the start of a platform to the start of the next, at most
+	private static final int MAX_PITCH = MAX_LENGTH + MAX_GAP;
+	private static final int RAMP_CHUNKS = 16;
+
+	private static final float COIN_CHANCE = 0.5f;
+	private static final float FEATHER_CHANCE = 0.05f;
+	private static final float CARROT_CHANCE = 0.015f;
+	private static final int MAX_COIN_ROW = 5;
+	// Coins hang this far over the top of the rock below, plus the arc
+	private static final float COIN_HEIGHT = 1.0f;
+	private static final float COIN_ARC_HEIGHT = 0.75f;
+
+	private final long seed;
+	private final int chunkWidth;
+
+	private final Pool<Rock> rockPool = new Pool<Rock>() {
+		@Override
+		protected Rock newObject() {
+			return new Rock();
+		}
+	};
+	private final Pool<GoldCoin> goldCoinPool = new Pool<GoldCoin>() {
+		@Override
+		protected GoldCoin newObject() {
+			return new GoldCoin();
+		}
+	};
+	private final Pool<Feather> featherPool = new Pool<Feather>() {
+		@Override
+		protected Feather newObject() {
+			return new Feather();
+		}
+	};
+	private final Pool<Carrot> carrotPool = new Pool<Carrot>() {
+		@Override
+		protected Carrot newObject() {
+			return new Carrot();
+		}
+	};
+
+	public ProceduralChunkSource(long seed, int chunkWidth) {
+		// the end of a chunk must have room to lead up to the next one
+		if (chunkWidth <= MAX_PITCH)
+			throw new IllegalArgumentException("chunkWidth must be more than "
+					+ MAX_PITCH + ": " + chunkWidth);
+		this.seed = seed;
+		this.chunkWidth = chunkWidth;
+	}
+
+	@Override
+	public int getWidth() {
+		return getChunkCount() * chunkWidth;
+	}
+
+	@Override
+	public int getChunkWidth() {
+		return chunkWidth;
+	}
+
+	@Override
+	public int getChunkCount() {
+		return WIDTH / chunkWidth;
+	}
+
+	@Override
+	public void getSpawnPoint(Vector2 out) {
+		// dropped onto the first platform
+		out.set(1, top(START_HEIGHT) + 0.5f);
+	}
+
+	@Override
+	public void getGoalPosition(Vector2 out) {
+		// standing on the last chunk, which is flat
+		out.set(getWidth() - chunkWidth / 2, top(START_HEIGHT));
+	}
+
+	@Override
+	public LevelChunk load(int index) {
+		LevelChunk chunk = new LevelChunk(index);
+		Random random = new Random(seed * 0x9e3779b97f4a7c15L + index);
+		int startX = index * chunkWidth;
+		if (index == getChunkCount() - 1) {
+			addRock(chunk, startX, START_HEIGHT, chunkWidth);
+			return chunk;
+		}
+
+		float difficulty = Math.min(1.0f, (float) index / RAMP_CHUNKS);
+		int maxLength = MAX_LENGTH
+				- Math.round(difficulty * (MAX_LENGTH - HARD_MAX_LENGTH));
+		int maxGap = 1 + Math.round(difficulty * (MAX_GAP - 1));
+		int target = boundaryHeight(index + 1);
+
+		int column = 0;
+		int height = boundaryHeight(index);
+		// the first platform is the runway the player starts on
+		int length = index == 0 ? MAX_LENGTH : randomLength(random, maxLength);
+		while (true) {
+			length = Math.min(length, chunkWidth - column);
+			float x = startX + column;
+			Rock rock = addRock(chunk, x, height, length);
+			if (index > 0 || column > 0)
+				addItems(chunk, random, x, top(height), length);
+			column += length;
+
+			int gap = 1 + random.nextInt(maxGap);
+			if (column + gap >= chunkWidth) {
+				// the next chunk may start higher, leave it a narrow gap
+				int rest = chunkWidth - column;
+				if (rest > 1)
+					rock.setLength(length + rest - 1);
+				break;
+			}
+			int next = nextHeight(random, height, target, column + gap);
+			// wide gaps can only be jumped going down or level
+			if (next > height)
+				gap = Math.min(gap, MAX_GAP_UP);
+			// coins to jump through
+			if (gap > 1 && random.nextFloat() < COIN_CHANCE)
+				addCoinArc(chunk, startX + column - 0.5f,
+						Math.max(top(height), top(next)), gap + 1);
+			column += gap;
+			height = next;
+			length = randomLength(random, maxLength);
+		}
+		return chunk;
+	}
+
+	@Override
+	public void unload(LevelChunk chunk) {
+		synchronized (rockPool) {
+			rockPool.freeAll(chunk.rocks);
+		}
+		synchronized (goldCoinPool) {
+			goldCoinPool.freeAll(chunk.goldCoins);
+		}
+		synchronized (featherPool) {
+			featherPool.freeAll(chunk.feathers);
+		}
+		synchronized (carrotPool) {
+			carrotPool.freeAll(chunk.carrots);
+		}
+	}
+
+	// Height of the platform starting at column, given the one before it.
+	// Low enough to go down to, and high enough that the platforms still to
+	// come in the chunk can climb to target, where the next chunk starts.
+	private int nextHeight(Random random, int height, int target, int column) {
+		int platformsAfter = (chunkWidth - 1 - column) / MAX_PITCH;
+		int low = Math.max(0, target - MAX_STEP_UP * (1 + platformsAfter));
+		int high = Math.min(MAX_HEIGHT, height + MAX_STEP_UP);
+		int next = height - MAX_STEP_DOWN
+				+ random.nextInt(MAX_STEP_DOWN + MAX_STEP_UP + 1);
+		return MathUtils.clamp(next, low, high);
+	}
+
+	// Height the chunk starts at. Random, but from the seed and index only,
+	// so neighbouring chunks agree on it.
+	private int boundaryHeight(int index) {
+		if (index == 0 || index >= getChunkCount() - 1)
+			return START_HEIGHT;
+		Random random = new Random(seed * 0x9e3779b97f4a7c15L - index);
+		return START_HEIGHT - BOUNDARY_RANGE
+				+ random.nextInt(2 * BOUNDARY_RANGE + 1);
+	}
+
+	private int randomLength(Random random, int maxLength) {
+		return MIN_LENGTH + random.nextInt(maxLength - MIN_LENGTH + 1);
+	}
+
+	private void addItems(LevelChunk chunk, Random random, float x, float top,
+			int length) {
+		float roll = random.nextFloat();
+		float centerX = x + length / 2.0f - 0.25f;
+		if (roll < CARROT_CHANCE) {
+			Carrot carrot;
+			synchronized (carrotPool) {
+				carrot = carrotPool.obtain();
+			}
+			carrot.collected = false;
+			place(carrot, centerX, top + COIN_HEIGHT);
+			chunk.carrots.add(carrot);
+		} else if (roll < CARROT_CHANCE + FEATHER_CHANCE) {
+			Feather feather;
+			synchronized (featherPool) {
+				feather = featherPool.obtain();
+			}
+			feather.collected = false;
+			place(feather, centerX, top + COIN_HEIGHT);
+			chunk.feathers.add(feather);
+		} else if (roll < CARROT_CHANCE + FEATHER_CHANCE + COIN_CHANCE) {
+			int count = Math.min(length, MAX_COIN_ROW);
+			addCoinArc(chunk, centerX - (count - 1) / 2.0f, top, count);
+		}
+	}
+
+	// count coins one column apart from x on, in an arc over top
+	private void addCoinArc(LevelChunk chunk, float x, float top, int count) {
+		for (int i = 0; i < count; i++) {
+			GoldCoin goldCoin;
+			synchronized (goldCoinPool) {
+				goldCoin = goldCoinPool.obtain();
+			}
+			goldCoin.collected = false;
+			float arc = MathUtils.sin(MathUtils.PI * (i + 0.5f) / count);
+			place(goldCoin, x + i, top + COIN_HEIGHT + COIN_ARC_HEIGHT * arc);
+			chunk.goldCoins.add(goldCoin);
+		}
+	}
+
+	private Rock addRock(LevelChunk chunk, float x, int height, int length) {
+		Rock rock;
+		synchronized (rockPool) {
+			rock = rockPool.obtain();
+		}
+		rock.setLength(length);
+		place(rock, x, BASE_HEIGHT + height * HEIGHT_STEP);
+		chunk.rocks.add(rock);
+		return rock;
+	}
+
+	private static void place(AbstractGameObject obj, float x, float y) {
+		obj.position.set(x, y);
+		obj.storePreviousPosition();
+	}
+
+	// Top of a rock at height, where the player stands
+	private static float top(int height) {
+		return BASE_HEIGHT + height * HEIGHT_STEP + 1.5f;
+	}
+}
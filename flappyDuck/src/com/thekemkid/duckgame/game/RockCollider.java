@@ -0,0 +1,203 @@
+package com.thekemkid.duckgame.game;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntArray;
+import com.thekemkid.duckgame.game.objects.BunnyHead;
+import com.thekemkid.duckgame.game.objects.BunnyHead.JUMP_STATE;
+import com.thekemkid.duckgame.game.objects.Rock;
+
+// Collision of the bunny head against the rocks of a level. The move of one
+// step is swept: the bunny's box travels from where it started the step
+// towards where physics put it, and stops at the first rock face on the way
+// (time of impact), then slides along it with what is left of the move. So
+// a step may be long without the bunny passing through a rock.
+//
+// Walking into a rock whose top is at most STEP_HEIGHT above the bunny's
+// feet steps up onto it, as with the old overlap test. Rocks the bunny
+// already overlaps when the step starts are resolved by pushing it out.
+public class RockCollider {
+
+	public static final String TAG = RockCollider.class.getName();
+
+	// Highest ledge the bunny walks up onto
+	private static final float STEP_HEIGHT = 0.25f;
+	// Distance at which the bunny counts as touching a rock
+	private static final float EPSILON = 0.001f;
+	// Most faces hit in one step (e.g. wall, then floor, then step)
+	private static final int MAX_HITS = 4;
+
+	private final Rectangle sweep = new Rectangle();
+	private final Rectangle box = new Rectangle();
+	private final IntArray candidates = new IntArray();
+
+	// Moves bunnyHead from (fromX, fromY) to its current position, stopping
+	// at and landing on rocks on the way
+	public void move(Level level, BunnyHead bunnyHead, float fromX, float fromY) {
+		float width = bunnyHead.bounds.width;
+		float height = bunnyHead.bounds.height;
+		float x = fromX;
+		float y = fromY;
+		float toX = bunnyHead.position.x;
+		float toY = bunnyHead.position.y;
+		boolean startedInside = false;
+
+		for (int hit = 0; hit < MAX_HITS; hit++) {
+			float dx = toX - x;
+			float dy = toY - y;
+			if (dx == 0 && dy == 0)
+				break;
+			sweep.set(Math.min(x, toX), Math.min(y, toY),
+					width + Math.abs(dx), height + Math.abs(dy));
+			level.rockGrid.query(sweep, candidates);
+
+			Rock first = null;
+			float firstTime = 1;
+			boolean firstAlongX = false;
+			for (int i = 0; i < candidates.size; i++) {
+				Rock rock = level.rocks.get(candidates.get(i));
+				float left = rock.position.x;
+				float right = left + rock.bounds.width;
+				float bottom = rock.position.y;
+				float top = bottom + rock.bounds.height;
+				if (x < right - EPSILON && x + width > left + EPSILON
+						&& y < top - EPSILON && y + height > bottom + EPSILON) {
+					startedInside = true;
+					continue;
+				}
+
+				// times at which the box starts and stops overlapping the
+				// rock along each axis
+				float entryX, exitX, entryY, exitY;
+				if (dx > 0) {
+					entryX = (left - (x + width)) / dx;
+					exitX = (right - x) / dx;
+				} else if (dx < 0) {
+					entryX = (right - x) / dx;
+					exitX = (left - (x + width)) / dx;
+				} else if (x + width > left && x < right) {
+					entryX = Float.NEGATIVE_INFINITY;
+					exitX = Float.POSITIVE_INFINITY;
+				} else {
+					continue;
+				}
+				if (dy > 0) {
+					entryY = (bottom - (y + height)) / dy;
+					exitY = (top - y) / dy;
+				} else if (dy < 0) {
+					entryY = (top - y) / dy;
+					exitY = (bottom - (y + height)) / dy;
+				} else if (y + height > bottom && y < top) {
+					entryY = Float.NEGATIVE_INFINITY;
+					exitY = Float.POSITIVE_INFINITY;
+				} else {
+					continue;
+				}
+
+				boolean alongX = entryX > entryY;
+				float entry = Math.max(Math.max(entryX, entryY), 0);
+				float exit = Math.min(exitX, exitY);
+				if (entry >= exit || entry >= firstTime)
+					continue;
+				// only faces the box moves into from outside stop it
+				if (alongX ? (dx > 0 ? x + width > left + EPSILON
+						: x < right - EPSILON) : (dy > 0 ? y + height > bottom
+						+ EPSILON : y < top - EPSILON))
+					continue;
+				first = rock;
+				firstTime = entry;
+				firstAlongX = alongX;
+			}
+			if (first == null) {
+				x = toX;
+				y = toY;
+				break;
+			}
+
+			x += dx * firstTime;
+			y += dy * firstTime;
+			float left = first.position.x;
+			float bottom = first.position.y;
+			float top = bottom + first.bounds.height;
+			if (!firstAlongX) {
+				if (dy < 0) {
+					y = top;
+					land(bunnyHead);
+				} else {
+					y = bottom - height;
+					bunnyHead.velocity.y = 0;
+				}
+				toY = y;
+			} else if (top - y <= STEP_HEIGHT) {
+				// step up and keep walking
+				y = top;
+				toY = Math.max(toY, top);
+				land(bunnyHead);
+			} else {
+				x = dx > 0 ? left - width : left + first.bounds.width;
+				toX = x;
+			}
+		}
+		bunnyHead.position.set(x, y);
+
+		if (startedInside)
+			pushOut(level, bunnyHead);
+	}
+
+	private void land(BunnyHead bunnyHead) {
+		switch (bunnyHead.jumpState) {
+		case FALLING:
+		case JUMP_FALLING:
+			bunnyHead.jumpState = JUMP_STATE.GROUNDED;
+			bunnyHead.velocity.y = 0;
+			break;
+		default:
+			break;
+		}
+	}
+
+	// Overlap test for rocks the bunny is inside of (e.g. spawned in one)
+	private void pushOut(Level level, BunnyHead bunnyHead) {
+		box.set(bunnyHead.position.x, bunnyHead.position.y,
+				bunnyHead.bounds.width, bunnyHead.bounds.height);
+		level.rockGrid.query(box, candidates);
+		for (int i = 0; i < candidates.size; i++) {
+			Rock rock = level.rocks.get(candidates.get(i));
+			sweep.set(rock.position.x, rock.position.y, rock.bounds.width,
+					rock.bounds.height);
+			if (!box.overlaps(sweep))
+				continue;
+			onCollisionBunnyHeadWithRock(bunnyHead, rock);
+			// IMPORTANT: must do all collisions for valid
+			// edge testing on rocks.
+		}
+	}
+
+	private void onCollisionBunnyHeadWithRock(BunnyHead bunnyHead, Rock rock) {
+		float heightDifference = Math.abs(bunnyHead.position.y
+				- (rock.position.y + rock.bounds.height));
+		if (heightDifference > STEP_HEIGHT) {
+			boolean hitLeftEdge = bunnyHead.position.x > (rock.position.x + rock.bounds.width / 2.0f);
+			if (hitLeftEdge) {
+				bunnyHead.position.x = rock.position.x + rock.bounds.width;
+			} else {
+				bunnyHead.position.x = rock.position.x - bunnyHead.bounds.width;
+			}
+			return;
+		}
+
+		switch (bunnyHead.jumpState) {
+		case GROUNDED:
+			break;
+		case FALLING:
+		case JUMP_FALLING:
+			bunnyHead.position.y = rock.position.y + bunnyHead.bounds.height
+					+ bunnyHead.origin.y;
+			bunnyHead.jumpState = JUMP_STATE.GROUNDED;
+			break;
+		case JUMP_RISING:
+			bunnyHead.position.y = rock.position.y + bunnyHead.bounds.height
+					+ bunnyHead.origin.y;
+			break;
+		}
+	}
+}
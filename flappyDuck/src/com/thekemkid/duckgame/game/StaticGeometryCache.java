@@ -0,0 +1,164 @@
+package com.thekemkid.duckgame.game;
+
+import com.thekemkid.duckgame.game.objects.Rock;
+import com.thekemkid.duckgame.utils.Constants;
+import com.thekemkid.duckgame.utils.RenderStats;
+import com.thekemkid.duckgame.utils.ViewportCuller;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+// Keeps the quads of the rocks on the GPU. The level is cut into chunks of
+// STATIC_CACHE_CHUNK_WIDTH; the rocks of a chunk are one cache entry, so a
+// visible chunk costs one draw call instead of re-submitting every quad each
+// frame. Rebuilt when the level changes; a streamed level changes its rocks
+// whenever a chunk comes or goes, so the rebuild reuses the cache and its
+// bookkeeping instead of allocating them again.
+public class StaticGeometryCache implements Disposable {
+
+	public static final String TAG = StaticGeometryCache.class.getName();
+
+	// SpriteCache cannot index more quads than this
+	private static final int MAX_INDEXED_QUADS = 5460;
+
+	private SpriteCache cache;
+	// quads the cache has room for
+	private int capacity;
+	private Level level;
+	private int version;
+
+	private float chunkWidth = Constants.STATIC_CACHE_CHUNK_WIDTH;
+	private float startX;
+	private int chunkCount;
+	// cache ids per chunk
+	private int[] ids;
+	// quads per cache id, empty ones are not drawn
+	private int[] quadCounts;
+	// extent of what the chunk draws, rocks may reach into the next chunk
+	private float[] chunkMinX;
+	private float[] chunkMaxX;
+	// build only: rocks of each chunk, and the bounds of one rock
+	private final Array<Array<Rock>> rocksByChunk = new Array<Array<Rock>>();
+	private final Rectangle bounds = new Rectangle();
+
+	// Rebuilds the cache if level is not the one it was built for
+	public void update(Level level) {
+		if (this.level == level && version == level.getStaticVersion())
+			return;
+		this.level = level;
+		version = level.getStaticVersion();
+		build();
+	}
+
+	private void build() {
+		// only the span of the rocks, chunked levels hold a window of them
+		startX = Float.MAX_VALUE;
+		float endX = -Float.MAX_VALUE;
+		for (Rock rock : level.rocks) {
+			// streamed levels leave null slots for evicted rocks
+			if (rock == null)
+				continue;
+			startX = Math.min(startX, rock.position.x - rock.dimension.x);
+			endX = Math.max(endX, rock.position.x + rock.bounds.width);
+		}
+		if (startX > endX) {
+			// no rocks
+			startX = 0;
+			endX = 0;
+		}
+		chunkCount = Math.max(1, MathUtils.ceil((endX - startX) / chunkWidth));
+
+		// bucket rocks by the chunk of their left end
+		while (rocksByChunk.size < chunkCount)
+			rocksByChunk.add(new Array<Rock>());
+		int quads = 0;
+		for (Rock rock : level.rocks) {
+			if (rock == null)
+				continue;
+			rocksByChunk.get(chunkAt(rock.position.x)).add(rock);
+			quads += rock.getQuadCount();
+		}
+
+		// streamed levels rebuild on every chunk swap, with room to spare the
+		// cache is refilled instead of creating a new mesh each time
+		quads = Math.max(1, quads);
+		if (cache == null || quads > capacity) {
+			if (cache != null)
+				cache.dispose();
+			capacity = quads <= MAX_INDEXED_QUADS ? Math.min(quads * 2,
+					MAX_INDEXED_QUADS) : quads;
+			cache = new SpriteCache(capacity, capacity <= MAX_INDEXED_QUADS);
+		} else {
+			cache.clear();
+		}
+		if (ids == null || ids.length < chunkCount) {
+			ids = new int[chunkCount];
+			quadCounts = new int[chunkCount];
+			chunkMinX = new float[chunkCount];
+			chunkMaxX = new float[chunkCount];
+		}
+		for (int chunk = 0; chunk < chunkCount; chunk++) {
+			float fromX = startX + chunk * chunkWidth;
+			chunkMinX[chunk] = fromX;
+			chunkMaxX[chunk] = fromX + chunkWidth;
+			quadCounts[chunk] = 0;
+
+			Array<Rock> rocks = rocksByChunk.get(chunk);
+			cache.beginCache();
+			for (Rock rock : rocks) {
+				rock.cache(cache);
+				quadCounts[chunk] += rock.getQuadCount();
+				rock.getRenderBounds(bounds);
+				chunkMinX[chunk] = Math.min(chunkMinX[chunk], bounds.x);
+				chunkMaxX[chunk] = Math.max(chunkMaxX[chunk], bounds.x
+						+ bounds.width);
+			}
+			ids[chunk] = cache.endCache();
+			// no references to evicted rocks are kept
+			rocks.clear();
+		}
+	}
+
+	// stats may be null
+	public void render(OrthographicCamera camera, ViewportCuller culler,
+			RenderStats.Pass stats) {
+		Rectangle view = culler.getView();
+		cache.setProjectionMatrix(camera.combined);
+		cache.begin();
+		for (int chunk = 0; chunk < chunkCount; chunk++) {
+			if (chunkMaxX[chunk] < view.x
+					|| chunkMinX[chunk] > view.x + view.width) {
+				culler.addCulled(1);
+				continue;
+			}
+			culler.addDrawn(1);
+			int quads = quadCounts[chunk];
+			if (quads == 0)
+				continue;
+			cache.draw(ids[chunk]);
+			if (stats != null) {
+				stats.sprites += quads;
+				stats.renderCalls++;
+				stats.textureBinds++;
+			}
+		}
+		cache.end();
+	}
+
+	private int chunkAt(float x) {
+		return MathUtils.clamp((int) ((x - startX) / chunkWidth), 0,
+				chunkCount - 1);
+	}
+
+	@Override
+	public void dispose() {
+		if (cache != null)
+			cache.dispose();
+		cache = null;
+		level = null;
+	}
+}
@@ -1,116 +1,220 @@
 package com.thekemkid.duckgame.game;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import com.thekemkid.duckgame.utils.CameraHelper;
 import com.thekemkid.duckgame.utils.Constants;
+import com.thekemkid.duckgame.utils.JournaledStore;
 
 import com.badlogic.gdx.Application.ApplicationType;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputAdapter;
 import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.math.Rectangle;
-import com.thekemkid.duckgame.game.objects.BunnyHead;
-import com.thekemkid.duckgame.game.objects.Carrot;
-import com.thekemkid.duckgame.game.objects.Feather;
-import com.thekemkid.duckgame.game.objects.Goal;
-import com.thekemkid.duckgame.game.objects.GoldCoin;
-import com.thekemkid.duckgame.game.objects.Rock;
-import com.thekemkid.duckgame.game.objects.BunnyHead.JUMP_STATE;
+import com.badlogic.gdx.utils.Disposable;
 
-public class WorldController extends InputAdapter {
+public class WorldController extends InputAdapter implements Disposable {
 
 	private static final String TAG = WorldController.class.getName();
 
 	public CameraHelper cameraHelper;
-	public Level level;
-	public int lives;
-	public int score;
-	public int curLevel;
-	public int overallScore;
-	public float timeLeft;
-
-	// Rectangles for collision detection
-	private Rectangle r1 = new Rectangle();
-	private Rectangle r2 = new Rectangle();
-
-	private float timeLeftGameOverDelay;
-	private float timeLeftWinDelay;
-
-	private void initLevel() {
-		if (curLevel < Constants.NUM_LEVELS) {
-			Gdx.input.setInputProcessor(this);
+	public WorldSimulation simulation;
+	public GameProgress progress;
+	// finished levels are submitted here if not null
+	private final LeaderboardClient leaderboard;
+	// level start whose result was submitted
+	private int submittedLevelStart = -1;
+
+	// Input gathered from Gdx.input for the next simulation step
+	private InputState inputState = new InputState();
+	// Level start the camera was last set up for
+	private int cameraLevelStart;
+
+	// Fixed timestep mode: the simulation advances in ticks of tickTime and
+	// the renderer interpolates between the last two ticks.
+	private boolean fixedTimestep = true;
+	private float tickTime = 1.0f / Constants.TICK_RATE;
+	private int maxTicksPerFrame = Constants.MAX_TICKS_PER_FRAME;
+	private float accumulator;
+	private float alpha = 1.0f;
+
+	// Records the input of every step while not null
+	private InputRecorder recorder;
+
+	// Called again on every respawn, which reuses the helper
+	private void initCamera() {
+		if (cameraHelper == null)
 			cameraHelper = new CameraHelper();
-			score = overallScore;
-			switch (curLevel) {
-			case 0:
-				level = new Level(Constants.LEVEL_01);
-				timeLeft = 180.0f;
-				break;
-			case 1:
-				level = new Level(Constants.LEVEL_02);
-				timeLeft = 180.0f;
-				break;
-			}
-			cameraHelper.setTarget(level.bunnyHead);
-		} else {
-			init();
-		}
+		else
+			cameraHelper.reset();
+		cameraLevelStart = simulation.getLevelStarts();
+		cameraHelper.setTarget(simulation.level.bunnyHead);
 	}
 
 	public WorldController() {
+		this(null);
+	}
+
+	public WorldController(LeaderboardClient leaderboard) {
+		this.leaderboard = leaderboard;
 		init();
 	}
 
 	private void init() {
-		lives = Constants.LIVES_START;
-		timeLeftGameOverDelay = 0;
-		timeLeftWinDelay = 0;
-		overallScore = 0;
-		curLevel = 0;
-
-		initLevel();
+		Gdx.input.setInputProcessor(this);
+		LevelLoader levelLoader = Constants.ENDLESS_MODE ? new EndlessLevelLoader(
+				Constants.ENDLESS_SEED) : new FileLevelLoader(
+				Constants.LEVEL_STREAMING);
+		simulation = new WorldSimulation(new CachedLevelLoader(levelLoader));
+		// endless runs do not overwrite the campaign
+		String progressDir = Constants.ENDLESS_MODE ? Constants.ENDLESS_PROGRESS_DIR
+				: Constants.PROGRESS_DIR;
+		progress = new GameProgress(new JournaledStore(
+				Gdx.files.local(progressDir)));
+		progress.restore(simulation);
+		progress.update(simulation);
+		initCamera();
 	}
 
 	public void update(float deltaTime) {
 
-		deltaTime = MathUtils.clamp(deltaTime, 0.0f, 0.03f);
-
-		handleDebugInput(deltaTime);
-		if (isGameOver()) {
-			timeLeftGameOverDelay -= deltaTime;
-			if (timeLeftGameOverDelay < 0)
-				init();
-		} else if (isGoalCollected()) {
-			timeLeftWinDelay -= deltaTime;
-			if (timeLeftWinDelay < 0) {
-				curLevel++;
-				initLevel();
-			}
+		if (!fixedTimestep) {
+			deltaTime = MathUtils.clamp(deltaTime, 0.0f,
+					Constants.MAX_STEP_TIME);
+			handleDebugInput(deltaTime);
+			step(deltaTime);
+			alpha = 1.0f;
 		} else {
-			timeLeft -= deltaTime;
-			handleInputGame(deltaTime);
+			handleDebugInput(Math.min(deltaTime, tickTime * maxTicksPerFrame));
+			accumulator += Math.max(deltaTime, 0.0f);
+			int ticks = 0;
+			while (accumulator >= tickTime && ticks < maxTicksPerFrame) {
+				step(tickTime);
+				accumulator -= tickTime;
+				ticks++;
+			}
+			// Too far behind: drop the backlog instead of spiraling
+			if (accumulator >= tickTime)
+				accumulator = 0;
+			alpha = accumulator / tickTime;
 		}
-		level.update(deltaTime);
-		testCollisions();
+
+		simulation.level.beginInterpolation(alpha);
 		cameraHelper.update(deltaTime);
-		if (!isGameOver() && isPlayerDead()) {
-			lives--;
-			if (isGameOver())
-				timeLeftGameOverDelay = Constants.TIME_DELAY_GAME_OVER;
-			else
-				initLevel();
+		simulation.level.endInterpolation();
+		simulation.level.updateStreaming(cameraHelper.getPosition().x);
+	}
+
+	private void step(float deltaTime) {
+		if (cameraHelper.hasTarget(simulation.level.bunnyHead)) {
+			handleInputGame(deltaTime);
+			if (recorder != null)
+				recorder.record(deltaTime, inputState);
+			simulation.update(deltaTime, inputState);
+		} else {
+			if (recorder != null)
+				recorder.record(deltaTime, null);
+			simulation.update(deltaTime, null);
+		}
+		progress.update(simulation);
+		if (leaderboard != null && simulation.isGoalCollected()
+				&& submittedLevelStart != simulation.getLevelStarts()) {
+			submittedLevelStart = simulation.getLevelStarts();
+			leaderboard.submit(simulation.curLevel, simulation.score,
+					simulation.timeLeft);
+		}
+		// simulation switched to a new level (respawn, next level, reset)
+		if (simulation.getLevelStarts() != cameraLevelStart)
+			initCamera();
+	}
+
+	// Saves the progress now, the app may not come back from a pause
+	public void pause() {
+		progress.flush();
+	}
+
+	@Override
+	public void dispose() {
+		progress.dispose();
+	}
+
+	public void setFixedTimestep(boolean fixedTimestep) {
+		this.fixedTimestep = fixedTimestep;
+		accumulator = 0;
+		alpha = 1.0f;
+	}
+
+	public boolean isFixedTimestep() {
+		return fixedTimestep;
+	}
+
+	public void setTickRate(int ticksPerSecond) {
+		tickTime = 1.0f / ticksPerSecond;
+	}
+
+	public void setMaxTicksPerFrame(int maxTicksPerFrame) {
+		this.maxTicksPerFrame = maxTicksPerFrame;
+	}
+
+	// Fraction of a tick between the last simulated tick and the current
+	// frame, used by the renderer to interpolate positions
+	public float getAlpha() {
+		return alpha;
+	}
+
+	// Restarts the game and records all input from here on, so the session
+	// can be replayed with InputReplay
+	public void startRecording() {
+		simulation.init();
+		initCamera();
+		recorder = new InputRecorder();
+	}
+
+	public boolean isRecording() {
+		return recorder != null;
+	}
+
+	// Stops recording and writes the recording to file
+	public void stopRecording(FileHandle file) {
+		if (recorder == null)
+			return;
+		OutputStream out = file.write(false);
+		try {
+			recorder.write(out);
+			Gdx.app.debug(TAG, "Recorded " + recorder.getTickCount()
+					+ " ticks to " + file.path());
+		} catch (IOException e) {
+			Gdx.app.error(TAG, "Could not write recording " + file.path(), e);
+		} finally {
+			try {
+				out.close();
+			} catch (IOException e) {
+				// ignore
+			}
 		}
+		recorder = null;
 	}
 
 	@Override
 	public boolean keyUp(int keycode) {
 
-		if (keycode == Keys.R) { // Reset game world
-			init();
+		if (keycode == Keys.F5) { // Start/stop input recording
+			if (isRecording())
+				stopRecording(Gdx.files.local("replays/replay-"
+						+ System.currentTimeMillis() + InputRecorder.EXTENSION));
+			else
+				startRecording();
+		} else if (keycode == Keys.R) { // Reset game world
+			if (recorder != null)
+				recorder.recordReset();
+			simulation.init();
+			initCamera();
 			Gdx.app.debug(TAG, "Game world resetted");
 		} else if (keycode == Keys.ENTER) { // Toggle camera follow
 			cameraHelper.setTarget(cameraHelper.hasTarget() ? null
-					: level.bunnyHead);
+					: simulation.level.bunnyHead);
 			Gdx.app.debug(TAG,
 					"Camera follow enabled: " + cameraHelper.hasTarget());
 		}
@@ -119,29 +223,16 @@ public class WorldController extends InputAdapter {
 
 	private void handleInputGame(float deltaTime) {
 
-		if (cameraHelper.hasTarget(level.bunnyHead)) {
-
-			// Player Movement
-			if (Gdx.input.isKeyPressed(Keys.LEFT)) {
-				level.bunnyHead.velocity.x = -level.bunnyHead.terminalVelocity.x;
-			} else if (Gdx.input.isKeyPressed(Keys.RIGHT)) {
-				level.bunnyHead.velocity.x = level.bunnyHead.terminalVelocity.x;
-			} else {
-				// Execute auto-forward movement on non-desktop platform
-				if (Gdx.app.getType() != ApplicationType.Desktop) {
-					level.bunnyHead.velocity.x = level.bunnyHead.terminalVelocity.x;
-				}
-			}
-
-			// Bunny Jump
-			if (Gdx.input.isTouched() || Gdx.input.isKeyPressed(Keys.SPACE)
-					|| Gdx.input.isKeyPressed(Keys.UP)) {
-				level.bunnyHead.setJumping(true);
-			} else {
-				level.bunnyHead.setJumping(false);
-			}
+		// Player Movement
+		inputState.left = Gdx.input.isKeyPressed(Keys.LEFT);
+		inputState.right = Gdx.input.isKeyPressed(Keys.RIGHT);
+		// Execute auto-forward movement on non-desktop platform
+		inputState.autoForward = Gdx.app.getType() != ApplicationType.Desktop;
 
-		}
+		// Bunny Jump
+		inputState.jump = Gdx.input.isTouched()
+				|| Gdx.input.isKeyPressed(Keys.SPACE)
+				|| Gdx.input.isKeyPressed(Keys.UP);
 	}
 
 	private void handleDebugInput(float deltaTime) {
@@ -150,7 +241,7 @@ public class WorldController extends InputAdapter {
 			return;
 
 		// Camera Controls (move)
-		if (!cameraHelper.hasTarget(level.bunnyHead)) {
+		if (!cameraHelper.hasTarget(simulation.level.bunnyHead)) {
 
 			float camMoveSpeed = 5 * deltaTime;
 			float camMoveSpeedAccelerationFactor = 5;
@@ -185,137 +276,4 @@ public class WorldController extends InputAdapter {
 		y += cameraHelper.getPosition().y;
 		cameraHelper.setPosition(x, y);
 	}
-
-	private void onCollisionBunnyHeadWithRock(Rock rock) {
-		BunnyHead bunnyHead = level.bunnyHead;
-		float heightDifference = Math.abs(bunnyHead.position.y
-				- (rock.position.y + rock.bounds.height));
-		if (heightDifference > 0.25f) {
-			boolean hitLeftEdge = bunnyHead.position.x > (rock.position.x + rock.bounds.width / 2.0f);
-			if (hitLeftEdge) {
-				bunnyHead.position.x = rock.position.x + rock.bounds.width;
-			} else {
-				bunnyHead.position.x = rock.position.x - bunnyHead.bounds.width;
-			}
-			return;
-		}
-
-		switch (bunnyHead.jumpState) {
-		case GROUNDED:
-			break;
-		case FALLING:
-		case JUMP_FALLING:
-			bunnyHead.position.y = rock.position.y + bunnyHead.bounds.height
-					+ bunnyHead.origin.y;
-			bunnyHead.jumpState = JUMP_STATE.GROUNDED;
-			break;
-		case JUMP_RISING:
-			bunnyHead.position.y = rock.position.y + bunnyHead.bounds.height
-					+ bunnyHead.origin.y;
-			break;
-		}
-	}
-
-	private void onCollisionBunnyWithGoldCoin(GoldCoin goldcoin) {
-		goldcoin.collected = true;
-		score += goldcoin.getScore();
-		Gdx.app.log(TAG, "Gold coin collected");
-	}
-
-	private void onCollisionBunnyWithFeather(Feather feather) {
-		feather.collected = true;
-		score += feather.getScore();
-		level.bunnyHead.setFeatherPowerup(true);
-		Gdx.app.log(TAG, "Feather collected");
-	}
-
-	private void onCollisionBunnyWithGoal(Goal goal) {
-		goal.collected = true;
-		score += goal.getScore();
-		overallScore = score;
-		timeLeftWinDelay = Constants.TIME_DELAY_WIN;
-		Gdx.app.log(TAG, "Goal collected");
-	}
-
-	private void onCollisionBunnyWithCarrot(Carrot carrot) {
-		carrot.collected = true;
-		if (lives < 3)
-			lives++;
-		score += carrot.getScore();
-		overallScore += score;
-		Gdx.app.log(TAG, "Carrot collected");
-	}
-
-	private void testCollisions() {
-		r1.set(level.bunnyHead.position.x, level.bunnyHead.position.y,
-				level.bunnyHead.bounds.width, level.bunnyHead.bounds.height);
-
-		// Test collision: Bunny Head <-> Rocks
-		for (Rock rock : level.rocks) {
-			r2.set(rock.position.x, rock.position.y, rock.bounds.width,
-					rock.bounds.height);
-			if (!r1.overlaps(r2))
-				continue;
-			onCollisionBunnyHeadWithRock(rock);
-			// IMPORTANT: must do all collisions for valid
-			// edge testing on rocks.
-		}
-
-		// Test collision: Bunny Head <-> Gold Coins
-		for (GoldCoin goldCoin : level.goldCoins) {
-			if (goldCoin.collected)
-				continue;
-			r2.set(goldCoin.position.x, goldCoin.position.y,
-					goldCoin.bounds.width, goldCoin.bounds.height);
-			if (!r1.overlaps(r2))
-				continue;
-			onCollisionBunnyWithGoldCoin(goldCoin);
-			break;
-		}
-
-		// Test collision: Bunny Head <-> Feathers
-		for (Feather feather : level.feathers) {
-			if (feather.collected)
-				continue;
-			r2.set(feather.position.x, feather.position.y,
-					feather.bounds.width, feather.bounds.height);
-			if (!r1.overlaps(r2))
-				continue;
-			onCollisionBunnyWithFeather(feather);
-			break;
-		}
-
-		// Test collision: Bunny Head <-> Carrots
-		for (Carrot carrot : level.carrots) {
-			if (carrot.collected)
-				continue;
-			r2.set(carrot.position.x, carrot.position.y, carrot.bounds.width,
-					carrot.bounds.height);
-			if (!r1.overlaps(r2))
-				continue;
-			onCollisionBunnyWithCarrot(carrot);
-			break;
-		}
-
-		// Test collision: Bunny Head <-> Goal
-		Goal goal = level.goal;
-		if (!goal.collected) {
-			r2.set(goal.position.x, goal.position.y, goal.bounds.width,
-					goal.bounds.height);
-			if (r1.overlaps(r2))
-				onCollisionBunnyWithGoal(goal);
-		}
-	}
-
-	public boolean isGameOver() {
-		return lives <= 0;
-	}
-
-	public boolean isGoalCollected() {
-		return level.goal.collected;
-	}
-
-	public boolean isPlayerDead() {
-		return level.bunnyHead.position.y < -5 || timeLeft <= 0;
-	}
 }
@@ -1,22 +1,40 @@
 package com.thekemkid.duckgame.game;
 
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
-
 import com.thekemkid.duckgame.utils.Constants;
+import com.thekemkid.duckgame.utils.ProfilingSpriteBatch;
+import com.thekemkid.duckgame.utils.RenderStats;
+import com.thekemkid.duckgame.utils.ViewportCuller;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.HAlignment;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.utils.Disposable;
 
 public class WorldRenderer implements Disposable {
 
 	private OrthographicCamera camera;
-	private SpriteBatch batch;
+	private ProfilingSpriteBatch batch;
 	private WorldController worldController;
 	private OrthographicCamera cameraGUI;
+	private ViewportCuller culler;
+	private StaticGeometryCache staticCache;
+	// counters of the frame being drawn and of the last complete frame
+	private RenderStats frameStats;
+	private RenderStats lastFrameStats;
+	// what the overlay shows, null until it is first laid out
+	private RenderStats shownStats;
+	private boolean showRenderStats = Constants.SHOW_RENDER_STATS;
+	private HudText renderStatsText;
+
+	private HudText scoreText;
+	private HudText timerText;
+	private HudText featherPowerupText;
+	private HudText fpsText;
+	private HudText gameOverText;
+	private HudText winLevelText;
+	private HudText winGameText;
 
 	public WorldRenderer(WorldController worldController) {
 		this.worldController = worldController;
@@ -24,7 +42,9 @@ public class WorldRenderer implements Disposable {
 	}
 
 	private void init() {
-		batch = new SpriteBatch();
+		batch = new ProfilingSpriteBatch();
+		frameStats = new RenderStats();
+		lastFrameStats = new RenderStats();
 		camera = new OrthographicCamera(Constants.VIEWPORT_WIDTH,
 				Constants.VIEWPORT_HEIGHT);
 		camera.position.set(0, 0, 0);
@@ -34,11 +54,46 @@ public class WorldRenderer implements Disposable {
 		cameraGUI.position.set(0, 0, 0);
 		cameraGUI.setToOrtho(true); // flip y-axis
 		cameraGUI.update();
+		culler = new ViewportCuller();
+		if (Constants.STATIC_GEOMETRY_CACHE)
+			staticCache = new StaticGeometryCache();
+		initGui();
+	}
+
+	private void initGui() {
+		BitmapFont fontBig = Assets.instance.fonts.defaultBig;
+		scoreText = new HudText(fontBig);
+		scoreText.setPosition(-15 + 75, -15 + 37);
+		timerText = new HudText(fontBig);
+		timerText.setColor(1, 0.75f, 0.25f, 1);
+		timerText.setAlignment(0, HAlignment.CENTER);
+		featherPowerupText = new HudText(Assets.instance.fonts.defaultSmall);
+		featherPowerupText.setPosition(-15 + 60, 30 + 57);
+		fpsText = new HudText(Assets.instance.fonts.defaultNormal);
+		gameOverText = new HudText(fontBig);
+		gameOverText.setColor(1, 0.75f, 0.25f, 1);
+		gameOverText.setAlignment(0, HAlignment.CENTER);
+		gameOverText.edit(0).append("GAME OVER!");
+		winLevelText = new HudText(fontBig);
+		winLevelText.setColor(1, 0.75f, 0.25f, 1);
+		winLevelText.setAlignment(0, HAlignment.CENTER);
+		winGameText = new HudText(fontBig);
+		winGameText.setColor(1, 0.75f, 0.25f, 1);
+		winGameText.setAlignment(0, HAlignment.CENTER);
+		renderStatsText = new HudText(Assets.instance.fonts.defaultNormal);
+		renderStatsText.setPosition(5, 100);
 	}
 
 	public void render() {
+		frameStats.reset();
+		batch.setPass(frameStats.world);
 		renderWorld(batch);
+		batch.setPass(frameStats.gui);
 		renderGui(batch);
+		batch.setPass(null);
+		lastFrameStats.set(frameStats);
+		if (showRenderStats)
+			renderStatsOverlay(batch);
 	}
 
 	public void resize(int width, int height) {
@@ -51,6 +106,14 @@ public class WorldRenderer implements Disposable {
 		cameraGUI.position.set(cameraGUI.viewportWidth / 2,
 				cameraGUI.viewportHeight / 2, 0);
 		cameraGUI.update();
+		float centerX = cameraGUI.viewportWidth / 2;
+		float centerY = cameraGUI.viewportHeight / 2;
+		timerText.setPosition(centerX, 0);
+		fpsText.setPosition(cameraGUI.viewportWidth - 55,
+				cameraGUI.viewportHeight - 15);
+		gameOverText.setPosition(centerX, centerY);
+		winLevelText.setPosition(centerX, centerY);
+		winGameText.setPosition(centerX, centerY);
 	}
 
 	private void renderGuiScore(SpriteBatch batch) {
@@ -58,68 +121,126 @@ public class WorldRenderer implements Disposable {
 		float y = -15;
 		batch.draw(Assets.instance.goldCoin.goldCoin, x, y, 50, 50, 100, 100,
 				0.35f, -0.35f, 0);
-		Assets.instance.fonts.defaultBig.draw(batch,
-				"" + worldController.score, x + 75, y + 37);
+		int score = worldController.simulation.score;
+		StringBuilder text = scoreText.edit(score);
+		if (text != null)
+			appendScoreText(text, score);
+		scoreText.draw(batch);
+	}
+
+	// GUI text building is kept apart from drawing so benchmarks can measure
+	// it without a GL context. StringBuilder.append(int) writes the digits
+	// straight into the builder, nothing here allocates once the builder has
+	// grown to size.
+
+	static void appendScoreText(StringBuilder text, int score) {
+		text.append(score);
+	}
+
+	static void appendTimerText(StringBuilder text, int secondsLeft) {
+		text.append("Time Left:\n").append(secondsLeft / 60).append(':')
+				.append(secondsLeft % 60);
+	}
+
+	static void appendFeatherPowerupText(StringBuilder text, int secondsLeft) {
+		text.append(secondsLeft);
+	}
+
+	static void appendFpsText(StringBuilder text, int fps) {
+		text.append("FPS: ").append(fps);
+	}
+
+	static void appendWinText(StringBuilder text, boolean lastLevel, int score) {
+		text.append(lastLevel ? "YOU WON THE GAME!\nSCORE: "
+				: "YOU WON THIS LEVEL!\nSCORE: ").append(score);
 	}
 
 	private void renderGuiTimer(SpriteBatch batch) {
-		float x = cameraGUI.viewportWidth / 2;
-		float y = 0;
-		double mins = worldController.timeLeft / 60;
-		double secs = worldController.timeLeft % 60;
-		DecimalFormat df = new DecimalFormat("#");
-		df.setRoundingMode(RoundingMode.FLOOR);
-		DecimalFormat df1 = new DecimalFormat("##");
-		df1.setRoundingMode(RoundingMode.FLOOR);
-		BitmapFont fontTimer = Assets.instance.fonts.defaultBig;
-		fontTimer.setColor(1, 0.75f, 0.25f, 1);
-		fontTimer.drawMultiLine(batch, "Time Left:\n"
-				+ df.format(mins) + ":"
-				+ df1.format(secs), x, y, 0,
-				BitmapFont.HAlignment.CENTER);
-		fontTimer.setColor(1, 1, 1, 1);
+		// endless levels have no time limit
+		if (Float.isInfinite(worldController.simulation.timeLeft))
+			return;
+		// the timer shows whole seconds, rounded down
+		int secondsLeft = Math.max(0, (int) worldController.simulation.timeLeft);
+		StringBuilder text = timerText.edit(secondsLeft);
+		if (text != null)
+			appendTimerText(text, secondsLeft);
+		timerText.draw(batch);
+	}
+
+	// Objects drawn and culled while rendering the last frame's world
+	public ViewportCuller getViewportCuller() {
+		return culler;
+	}
+
+	// What the last frame sent to the GPU, the overlay itself not included
+	public RenderStats getRenderStats() {
+		return lastFrameStats;
+	}
+
+	public void setShowRenderStats(boolean showRenderStats) {
+		this.showRenderStats = showRenderStats;
+	}
+
+	public boolean isShowRenderStats() {
+		return showRenderStats;
+	}
+
+	private void renderStatsOverlay(SpriteBatch batch) {
+		if (shownStats == null || !shownStats.sameAs(lastFrameStats)) {
+			if (shownStats == null)
+				shownStats = new RenderStats();
+			shownStats.set(lastFrameStats);
+			StringBuilder text = renderStatsText.edit();
+			appendPassStats(text.append("World\n"), lastFrameStats.world);
+			appendPassStats(text.append("\nGUI\n"), lastFrameStats.gui);
+		}
+		batch.setProjectionMatrix(cameraGUI.combined);
+		batch.begin();
+		renderStatsText.draw(batch);
+		batch.end();
+	}
+
+	static void appendPassStats(StringBuilder text, RenderStats.Pass pass) {
+		text.append("sprites: ").append(pass.sprites);
+		text.append("\nrender calls: ").append(pass.renderCalls);
+		text.append("\ncolor changes: ").append(pass.colorChanges);
+		text.append("\ntexture binds: ").append(pass.textureBinds);
 	}
 
 	@Override
 	public void dispose() {
 		batch.dispose();
+		if (staticCache != null)
+			staticCache.dispose();
 	}
 
 	private void renderGuiGameOverMessage(SpriteBatch batch) {
-		float x = cameraGUI.viewportWidth / 2;
-		float y = cameraGUI.viewportHeight / 2;
-		if (worldController.isGameOver()) {
-			BitmapFont fontGameOver = Assets.instance.fonts.defaultBig;
-			fontGameOver.setColor(1, 0.75f, 0.25f, 1);
-			fontGameOver.drawMultiLine(batch, "GAME OVER!", x, y, 0,
-					BitmapFont.HAlignment.CENTER);
-			fontGameOver.setColor(1, 1, 1, 1);
-		}
+		if (worldController.simulation.isGameOver())
+			gameOverText.draw(batch);
 	}
 
 	private void renderGuiWinMessage(SpriteBatch batch) {
-		float x = cameraGUI.viewportWidth / 2;
-		float y = cameraGUI.viewportHeight / 2;
-		if (worldController.isGoalCollected()) {
-			BitmapFont fontWin = Assets.instance.fonts.defaultBig;
-			fontWin.setColor(1, 0.75f, 0.25f, 1);
-			if (worldController.curLevel < Constants.NUM_LEVELS-1) {
-				fontWin.drawMultiLine(batch, "YOU WON THIS LEVEL!\nSCORE: "
-						+ worldController.score, x, y, 0,
-						BitmapFont.HAlignment.CENTER);
+		if (worldController.simulation.isGoalCollected()) {
+			if (worldController.simulation.curLevel < Constants.NUM_LEVELS-1) {
+				int score = worldController.simulation.score;
+				StringBuilder text = winLevelText.edit(score);
+				if (text != null)
+					appendWinText(text, false, score);
+				winLevelText.draw(batch);
 			} else {
-				fontWin.drawMultiLine(batch, "YOU WON THE GAME!\nSCORE: "
-						+ worldController.overallScore, x, y, 0,
-						BitmapFont.HAlignment.CENTER);
+				int score = worldController.simulation.overallScore;
+				StringBuilder text = winGameText.edit(score);
+				if (text != null)
+					appendWinText(text, true, score);
+				winGameText.draw(batch);
 			}
-			fontWin.setColor(1, 1, 1, 1);
 		}
 	}
 
 	private void renderGuiFeatherPowerup(SpriteBatch batch) {
 		float x = -15;
 		float y = 30;
-		float timeLeftFeatherPowerup = worldController.level.bunnyHead.timeLeftFeatherPowerup;
+		float timeLeftFeatherPowerup = worldController.simulation.level.bunnyHead.timeLeftFeatherPowerup;
 		if (timeLeftFeatherPowerup > 0) {
 			// Start icon fade in/out if the left power-up time
 			// is less than 4 seconds. The fade interval is set
@@ -132,8 +253,11 @@ public class WorldRenderer implements Disposable {
 			batch.draw(Assets.instance.feather.feather, x, y, 50, 50, 100, 100,
 					0.35f, -0.35f, 0);
 			batch.setColor(1, 1, 1, 1);
-			Assets.instance.fonts.defaultSmall.draw(batch, ""
-					+ (int) timeLeftFeatherPowerup, x + 60, y + 57);
+			int secondsLeft = (int) timeLeftFeatherPowerup;
+			StringBuilder text = featherPowerupText.edit(secondsLeft);
+			if (text != null)
+				appendFeatherPowerupText(text, secondsLeft);
+			featherPowerupText.draw(batch);
 		}
 	}
 
@@ -141,7 +265,7 @@ public class WorldRenderer implements Disposable {
 		float x = cameraGUI.viewportWidth - 50 - Constants.LIVES_START * 50;
 		float y = -15;
 		for (int i = 0; i < Constants.LIVES_START; i++) {
-			if (worldController.lives <= i)
+			if (worldController.simulation.lives <= i)
 				batch.setColor(0.5f, 0.5f, 0.5f, 0.5f);
 			batch.draw(Assets.instance.bunny.head, x + i * 50, y, 50, 50, 120,
 					100, 0.35f, -0.35f, 0);
@@ -150,22 +274,22 @@ public class WorldRenderer implements Disposable {
 	}
 
 	private void renderGuiFpsCounter(SpriteBatch batch) {
-		float x = cameraGUI.viewportWidth - 55;
-		float y = cameraGUI.viewportHeight - 15;
 		int fps = Gdx.graphics.getFramesPerSecond();
-		BitmapFont fpsFont = Assets.instance.fonts.defaultNormal;
-		if (fps >= 45) {
-			// 45 or more FPS show up in green
-			fpsFont.setColor(0, 1, 0, 1);
-		} else if (fps >= 30) {
-			// 30 or more FPS show up in yellow
-			fpsFont.setColor(1, 1, 0, 1);
-		} else {
-			// less than 30 FPS show up in red
-			fpsFont.setColor(1, 0, 0, 1);
+		StringBuilder text = fpsText.edit(fps);
+		if (text != null) {
+			if (fps >= 45) {
+				// 45 or more FPS show up in green
+				fpsText.setColor(0, 1, 0, 1);
+			} else if (fps >= 30) {
+				// 30 or more FPS show up in yellow
+				fpsText.setColor(1, 1, 0, 1);
+			} else {
+				// less than 30 FPS show up in red
+				fpsText.setColor(1, 0, 0, 1);
+			}
+			appendFpsText(text, fps);
 		}
-		fpsFont.draw(batch, "FPS: " + fps, x, y);
-		fpsFont.setColor(1, 1, 1, 1); // white
+		fpsText.draw(batch);
 	}
 
 	private void renderGui(SpriteBatch batch) {
@@ -191,9 +315,22 @@ public class WorldRenderer implements Disposable {
 
 	private void renderWorld(SpriteBatch batch) {
 		worldController.cameraHelper.applyTo(camera);
+		culler.begin(camera);
+		Level level = worldController.simulation.level;
 		batch.setProjectionMatrix(camera.combined);
 		batch.begin();
-		worldController.level.render(batch);
+		level.renderBackground(batch, culler);
+		if (staticCache != null) {
+			batch.end();
+			staticCache.update(level);
+			staticCache.render(camera, culler, frameStats.world);
+			batch.begin();
+		}
+		level.beginInterpolation(worldController.getAlpha());
+		if (staticCache == null)
+			level.renderStatic(batch, culler);
+		level.renderObjects(batch, culler);
+		level.endInterpolation();
 		batch.end();
 	}
 }
\ No newline at end of file
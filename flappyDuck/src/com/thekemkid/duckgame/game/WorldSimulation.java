@@ -0,0 +1,285 @@
+package com.thekemkid.duckgame.game;
+
+import com.thekemkid.duckgame.utils.Constants;
+import com.thekemkid.duckgame.utils.EventLog;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntArray;
+import com.thekemkid.duckgame.game.objects.BunnyHead;
+import com.thekemkid.duckgame.game.objects.Carrot;
+import com.thekemkid.duckgame.game.objects.Feather;
+import com.thekemkid.duckgame.game.objects.Goal;
+import com.thekemkid.duckgame.game.objects.GoldCoin;
+
+// Game rules, physics and collision. Advances the world from an explicit
+// InputState and never touches Gdx.input, Gdx.graphics or Assets, so it can
+// run without a window or GL context.
+public class WorldSimulation {
+
+	private static final String TAG = WorldSimulation.class.getName();
+
+	private static final int EVENT_GOLD_COIN = EventLog.define(TAG,
+			EventLog.INFO, "Gold coin collected at x<{}>, score <{}>");
+	private static final int EVENT_FEATHER = EventLog.define(TAG,
+			EventLog.INFO, "Feather collected at x<{}>, score <{}>");
+	private static final int EVENT_GOAL = EventLog.define(TAG, EventLog.INFO,
+			"Goal collected, score <{}>");
+	private static final int EVENT_CARROT = EventLog.define(TAG,
+			EventLog.INFO, "Carrot collected at x<{}>, score <{}> lives <{}>");
+
+	private final LevelLoader levelLoader;
+
+	public Level level;
+	public int lives;
+	public int score;
+	public int curLevel;
+	public int overallScore;
+	public float timeLeft;
+
+	// Rectangles for collision detection
+	private Rectangle r1 = new Rectangle();
+	private Rectangle r2 = new Rectangle();
+	// Broadphase query results (indices into the level arrays)
+	private IntArray candidates = new IntArray();
+	private final RockCollider rockCollider = new RockCollider();
+
+	// incremented whenever a level is (re)started, also on respawn
+	private int levelStarts;
+
+	private float timeLeftGameOverDelay;
+	private float timeLeftWinDelay;
+
+	public WorldSimulation(LevelLoader levelLoader) {
+		this.levelLoader = levelLoader;
+		init();
+	}
+
+	private void initLevel() {
+		if (curLevel < Constants.NUM_LEVELS) {
+			score = overallScore;
+			level = levelLoader.load(curLevel);
+			timeLeft = level.getTimeLimit();
+			levelStarts++;
+		} else {
+			init();
+		}
+	}
+
+	public void init() {
+		start(0, Constants.LIVES_START, 0);
+	}
+
+	// Starts the game at level with lives and overallScore, e.g. to continue
+	// a saved game
+	public void start(int level, int lives, int overallScore) {
+		this.lives = lives;
+		timeLeftGameOverDelay = 0;
+		timeLeftWinDelay = 0;
+		this.overallScore = overallScore;
+		curLevel = level;
+
+		initLevel();
+	}
+
+	// Advances the world by deltaTime seconds. Pass null as input to leave
+	// the player uncontrolled (e.g. while the camera is detached).
+	public void update(float deltaTime, InputState input) {
+		level.storePreviousPositions();
+		if (isGameOver()) {
+			timeLeftGameOverDelay -= deltaTime;
+			if (timeLeftGameOverDelay < 0)
+				init();
+		} else if (isGoalCollected()) {
+			timeLeftWinDelay -= deltaTime;
+			if (timeLeftWinDelay < 0) {
+				curLevel++;
+				initLevel();
+			}
+		} else {
+			timeLeft -= deltaTime;
+			if (input != null)
+				applyInput(level.bunnyHead, input);
+		}
+		level.update(deltaTime);
+		testCollisions();
+		if (!isGameOver() && isPlayerDead()) {
+			lives--;
+			if (isGameOver())
+				timeLeftGameOverDelay = Constants.TIME_DELAY_GAME_OVER;
+			else
+				initLevel();
+		}
+	}
+
+	static void applyInput(BunnyHead bunnyHead, InputState input) {
+		// Player Movement
+		if (input.left) {
+			bunnyHead.velocity.x = -bunnyHead.terminalVelocity.x;
+		} else if (input.right || input.autoForward) {
+			bunnyHead.velocity.x = bunnyHead.terminalVelocity.x;
+		}
+
+		// Bunny Jump
+		bunnyHead.setJumping(input.jump);
+	}
+
+	private void onCollisionBunnyWithGoldCoin(GoldCoin goldcoin) {
+		goldcoin.collected = true;
+		score += goldcoin.getScore();
+		EventLog.record(EVENT_GOLD_COIN, goldcoin.position.x, score);
+	}
+
+	private void onCollisionBunnyWithFeather(Feather feather) {
+		feather.collected = true;
+		score += feather.getScore();
+		level.bunnyHead.setFeatherPowerup(true);
+		EventLog.record(EVENT_FEATHER, feather.position.x, score);
+	}
+
+	private void onCollisionBunnyWithGoal(Goal goal) {
+		goal.collected = true;
+		score += goal.getScore();
+		overallScore = score;
+		timeLeftWinDelay = Constants.TIME_DELAY_WIN;
+		EventLog.record(EVENT_GOAL, score);
+	}
+
+	private void onCollisionBunnyWithCarrot(Carrot carrot) {
+		carrot.collected = true;
+		if (lives < 3)
+			lives++;
+		score += carrot.getScore();
+		overallScore += score;
+		EventLog.record(EVENT_CARROT, carrot.position.x, score, lives);
+	}
+
+	// package-private so benchmarks can measure collision on its own
+	void testCollisions() {
+		BunnyHead bunnyHead = level.bunnyHead;
+
+		// Test collision: Bunny Head <-> Rocks, along the move of this step
+		rockCollider.move(level, bunnyHead, bunnyHead.previousPosition.x,
+				bunnyHead.previousPosition.y);
+
+		// Items are tested against all the bunny passed in this step, so a
+		// long step does not skip them
+		sweptBounds(bunnyHead, r1);
+
+		// Test collision: Bunny Head <-> Gold Coins
+		level.goldCoinGrid.query(r1, candidates);
+		for (int i = 0; i < candidates.size; i++) {
+			GoldCoin goldCoin = level.goldCoins.get(candidates.get(i));
+			if (goldCoin.collected)
+				continue;
+			r2.set(goldCoin.position.x, goldCoin.position.y,
+					goldCoin.bounds.width, goldCoin.bounds.height);
+			if (!r1.overlaps(r2))
+				continue;
+			onCollisionBunnyWithGoldCoin(goldCoin);
+			level.goldCoinGrid.remove(candidates.get(i), r2.x, r2.y,
+					r2.width, r2.height);
+			break;
+		}
+
+		// Test collision: Bunny Head <-> Feathers
+		level.featherGrid.query(r1, candidates);
+		for (int i = 0; i < candidates.size; i++) {
+			Feather feather = level.feathers.get(candidates.get(i));
+			if (feather.collected)
+				continue;
+			r2.set(feather.position.x, feather.position.y,
+					feather.bounds.width, feather.bounds.height);
+			if (!r1.overlaps(r2))
+				continue;
+			onCollisionBunnyWithFeather(feather);
+			level.featherGrid.remove(candidates.get(i), r2.x, r2.y,
+					r2.width, r2.height);
+			break;
+		}
+
+		// Test collision: Bunny Head <-> Carrots
+		level.carrotGrid.query(r1, candidates);
+		for (int i = 0; i < candidates.size; i++) {
+			Carrot carrot = level.carrots.get(candidates.get(i));
+			if (carrot.collected)
+				continue;
+			r2.set(carrot.position.x, carrot.position.y, carrot.bounds.width,
+					carrot.bounds.height);
+			if (!r1.overlaps(r2))
+				continue;
+			onCollisionBunnyWithCarrot(carrot);
+			level.carrotGrid.remove(candidates.get(i), r2.x, r2.y,
+					r2.width, r2.height);
+			break;
+		}
+
+		// Test collision: Bunny Head <-> Goal
+		Goal goal = level.goal;
+		if (!goal.collected) {
+			r2.set(goal.position.x, goal.position.y, goal.bounds.width,
+					goal.bounds.height);
+			if (r1.overlaps(r2))
+				onCollisionBunnyWithGoal(goal);
+		}
+	}
+
+	// Box covering the bunny head at the start and the end of the step
+	static Rectangle sweptBounds(BunnyHead bunnyHead, Rectangle out) {
+		float fromX = bunnyHead.previousPosition.x;
+		float fromY = bunnyHead.previousPosition.y;
+		float toX = bunnyHead.position.x;
+		float toY = bunnyHead.position.y;
+		return out.set(Math.min(fromX, toX), Math.min(fromY, toY),
+				bunnyHead.bounds.width + Math.abs(toX - fromX),
+				bunnyHead.bounds.height + Math.abs(toY - fromY));
+	}
+
+	// Changes when the level was switched or restarted, even if level is
+	// the same instance as before
+	public int getLevelStarts() {
+		return levelStarts;
+	}
+
+	// Hash of the game state, equal after equal runs. Replays compare it to
+	// find simulation changes.
+	public int getStateHash() {
+		int hash = curLevel;
+		hash = 31 * hash + lives;
+		hash = 31 * hash + score;
+		hash = 31 * hash + overallScore;
+		hash = 31 * hash + Float.floatToIntBits(timeLeft);
+		BunnyHead bunnyHead = level.bunnyHead;
+		hash = 31 * hash + Float.floatToIntBits(bunnyHead.position.x);
+		hash = 31 * hash + Float.floatToIntBits(bunnyHead.position.y);
+		hash = 31 * hash + Float.floatToIntBits(bunnyHead.velocity.x);
+		hash = 31 * hash + Float.floatToIntBits(bunnyHead.velocity.y);
+		hash = 31 * hash + bunnyHead.jumpState.ordinal();
+		hash = 31 * hash + Float.floatToIntBits(bunnyHead.timeJumping);
+		hash = 31 * hash
+				+ Float.floatToIntBits(bunnyHead.timeLeftFeatherPowerup);
+		// streamed levels leave null slots for evicted items
+		for (GoldCoin goldCoin : level.goldCoins)
+			if (goldCoin != null)
+				hash = 31 * hash + (goldCoin.collected ? 1 : 0);
+		for (Feather feather : level.feathers)
+			if (feather != null)
+				hash = 31 * hash + (feather.collected ? 1 : 0);
+		for (Carrot carrot : level.carrots)
+			if (carrot != null)
+				hash = 31 * hash + (carrot.collected ? 1 : 0);
+		hash = 31 * hash + (level.goal.collected ? 1 : 0);
+		return hash;
+	}
+
+	public boolean isGameOver() {
+		return lives <= 0;
+	}
+
+	public boolean isGoalCollected() {
+		return level.goal.collected;
+	}
+
+	public boolean isPlayerDead() {
+		return level.bunnyHead.position.y < -5 || timeLeft <= 0;
+	}
+}
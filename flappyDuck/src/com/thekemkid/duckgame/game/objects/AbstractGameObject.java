@@ -4,6 +4,7 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.MathUtils;
+import com.thekemkid.duckgame.utils.ViewportCuller;
 
 public abstract class AbstractGameObject {
     
@@ -19,6 +20,10 @@ public abstract class AbstractGameObject {
     public Vector2      acceleration;
     public Rectangle    bounds;
 
+    // Position at the previous simulation tick, for render interpolation
+    public Vector2      previousPosition;
+    private Vector2     simulatedPosition;
+
     public AbstractGameObject() {
         position = new Vector2();
         dimension = new Vector2(1, 1);
@@ -30,6 +35,8 @@ public abstract class AbstractGameObject {
         friction = new Vector2();
         acceleration = new Vector2();
         bounds = new Rectangle();
+        previousPosition = new Vector2();
+        simulatedPosition = new Vector2();
     }
     
     protected void updateMotionX(float deltaTime) {
@@ -73,5 +80,37 @@ public abstract class AbstractGameObject {
         position.y += velocity.y * deltaTime;
   }
     
+    // Whether update() changes anything. Objects that stay where they are
+    // are left out of the level's update loop; animated objects override
+    // this to return true.
+    public boolean isDynamic() {
+        return velocity.x != 0 || velocity.y != 0 || acceleration.x != 0 || acceleration.y != 0;
+    }
+
+    public void storePreviousPosition() {
+        previousPosition.set(position);
+    }
+
+    // Temporarily moves the object alpha of the way from its previous to its
+    // current tick position. Must be followed by endInterpolation().
+    public void beginInterpolation(float alpha) {
+        simulatedPosition.set(position);
+        position.set(previousPosition).lerp(simulatedPosition, alpha);
+    }
+
+    public void endInterpolation() {
+        position.set(simulatedPosition);
+    }
+
+    // Area covered on screen, used for viewport culling
+    public Rectangle getRenderBounds(Rectangle out) {
+        return out.set(position.x, position.y, dimension.x, dimension.y);
+    }
+
+    public void render(SpriteBatch batch, ViewportCuller culler) {
+        if (culler.isVisible(this))
+            render(batch);
+    }
+
     public abstract void render(SpriteBatch batch);
 }
\ No newline at end of file
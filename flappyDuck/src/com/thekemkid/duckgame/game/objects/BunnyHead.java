@@ -22,7 +22,6 @@ public class BunnyHead extends AbstractGameObject {
 		GROUNDED, FALLING, JUMP_RISING, JUMP_FALLING
 	}
 
-	private TextureRegion regHead;
 	public VIEW_DIRECTION viewDirection;
 	public float timeJumping;
 	public JUMP_STATE jumpState;
@@ -35,7 +34,6 @@ public class BunnyHead extends AbstractGameObject {
 
 	public void init() {
 		dimension.set(1, 1);
-		regHead = Assets.instance.bunny.head;
 
 		origin.set(dimension.x / 2, dimension.y / 2); // Center image on game
 														// object
@@ -149,7 +147,7 @@ public class BunnyHead extends AbstractGameObject {
 		if (hasFeatherPowerup)
 			batch.setColor(1.0f, 0.8f, 0.0f, 1.0f);
 		// Draw image
-		reg = regHead;
+		reg = Assets.instance.bunny.head;
 		batch.draw(reg.getTexture(), position.x, position.y, origin.x,
 				origin.y, dimension.x, dimension.y, scale.x, scale.y, rotation,
 				reg.getRegionX(), reg.getRegionY(), reg.getRegionWidth(),
@@ -7,7 +7,6 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
 public class Carrot extends AbstractGameObject{
 
-	private TextureRegion regCarrot;
 	public boolean collected;
 
 	public Carrot() {
@@ -16,7 +15,6 @@ public class Carrot extends AbstractGameObject{
 
 	private void init() {
 		dimension.set(0.5f, 0.5f);
-		regCarrot = Assets.instance.carrot.carrot;
 		// Set bounding box for collision detection
 		bounds.set(0, 0, dimension.x, dimension.y);
 		collected = false;
@@ -26,7 +24,7 @@ public class Carrot extends AbstractGameObject{
 		if (collected)
 			return;
 		TextureRegion reg = null;
-		reg = regCarrot;
+		reg = Assets.instance.carrot.carrot;
 		batch.draw(reg.getTexture(), position.x, position.y, origin.x,
 				origin.y, dimension.x, dimension.y, scale.x, scale.y, rotation,
 				reg.getRegionX(), reg.getRegionY(), reg.getRegionWidth(),
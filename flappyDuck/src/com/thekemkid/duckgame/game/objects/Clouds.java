@@ -1,75 +1,43 @@
-   package com.thekemkid.duckgame.game.objects;
+package com.thekemkid.duckgame.game.objects;
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
 import com.thekemkid.duckgame.game.Assets;
 
-public class Clouds extends AbstractGameObject {
+// A cloud every 5 units, image and height picked per slot so the row does
+// not look repeated
+public class Clouds extends ParallaxLayer {
 
-    private float                   length;
-    private Array<TextureRegion>    regClouds;
-    private Array<Cloud>            clouds;
+    private static final float SPACING = 5;
+    // random additional height up to this much up or down
+    private static final float JITTER_Y = 0.2f;
 
-    private class Cloud extends AbstractGameObject {
-        private TextureRegion   regCloud;
-
-        public Cloud() {}
-
-        public void setRegion(TextureRegion region) {
-            regCloud = region;
-        }
-
-        @Override
-        public void render(SpriteBatch batch) {
-            TextureRegion reg = regCloud;
-            batch.draw(reg.getTexture(), position.x + origin.x, position.y + origin.y, origin.x, origin.y, dimension.x,
-                    dimension.y, scale.x, scale.y, rotation, reg.getRegionX(), reg.getRegionY(), reg.getRegionWidth(),
-                    reg.getRegionHeight(), false, false);
-        }
-    }
-
-    public Clouds(float length) {
-        this.length = length;
-        init();
+    public Clouds() {
+        super(1.75f, 1.5f, 1.0f);
+        setTiles(SPACING, 3.0f);
     }
 
-    private void init() {
-        dimension.set(3.0f, 1.5f);
-        regClouds = new Array<TextureRegion>();
-        regClouds.add(Assets.instance.levelDecoration.cloud01);
-        regClouds.add(Assets.instance.levelDecoration.cloud02);
-        regClouds.add(Assets.instance.levelDecoration.cloud03);
-        int distFac = 5;
-        int numClouds = (int) (length / distFac);
-        clouds = new Array<Cloud>(2 * numClouds);
-        for (int i = 0; i < numClouds; i++) {
-            Cloud cloud = spawnCloud();
-            cloud.position.x = i * distFac;
-            clouds.add(cloud);
+    @Override
+    protected TextureRegion getTile(int index) {
+        switch ((hash(index) >>> 8) % 3) {
+        case 0:
+            return Assets.instance.levelDecoration.cloud01;
+        case 1:
+            return Assets.instance.levelDecoration.cloud02;
+        default:
+            return Assets.instance.levelDecoration.cloud03;
         }
     }
 
-    private Cloud spawnCloud() {
-        Cloud cloud = new Cloud();
-        cloud.dimension.set(dimension);
-
-        cloud.setRegion(regClouds.random());                    // select random cloud image
-        Vector2 pos = new Vector2();                            // position
-        pos.x = length + 10;                                    // position after end of level
-        pos.y += 1.75;                                          // base position
-
-        // random additional position
-        pos.y += MathUtils.random(0.0f, 0.2f) * (MathUtils.randomBoolean() ? 1 : -1);
-        cloud.position.set(pos);
-        return cloud;
+    @Override
+    protected float getTileOffsetY(int index) {
+        return ((hash(index) & 0xFF) / 127.5f - 1) * JITTER_Y;
     }
 
-    @Override
-    public void render(SpriteBatch batch) {
-        for (Cloud cloud : clouds)
-            cloud.render(batch);
+    private static int hash(int index) {
+        int h = index * 0x9E3779B1;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h & 0x7FFFFFFF;
     }
-}
\ No newline at end of file
+}
@@ -5,7 +5,6 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.thekemkid.duckgame.game.Assets;
 
 public class Feather extends AbstractGameObject {
-    private TextureRegion   regFeather;
     public boolean          collected;
 
     public Feather() {
@@ -14,7 +13,6 @@ public class Feather extends AbstractGameObject {
 
     private void init() {
         dimension.set(0.5f, 0.5f);
-        regFeather = Assets.instance.feather.feather;
         // Set bounding box for collision detection
         bounds.set(0, 0, dimension.x, dimension.y);
         collected = false;
@@ -23,7 +21,7 @@ public class Feather extends AbstractGameObject {
     public void render(SpriteBatch batch) {
         if (collected) return;
         TextureRegion reg = null;
-        reg = regFeather;
+        reg = Assets.instance.feather.feather;
         batch.draw(reg.getTexture(), position.x, position.y, origin.x, origin.y, dimension.x, dimension.y, scale.x,
                 scale.y, rotation, reg.getRegionX(), reg.getRegionY(), reg.getRegionWidth(), reg.getRegionHeight(),
                 false, false);
@@ -7,7 +7,6 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
 public class Goal extends AbstractGameObject {
 
-	 	private TextureRegion   regGoal;
 	    public boolean          collected;
 
 	    public Goal() {
@@ -16,7 +15,6 @@ public class Goal extends AbstractGameObject {
 
 	    private void init() {
 	        dimension.set(2.0f, 2.0f);
-	        regGoal = Assets.instance.goal.goal;
 	        // Set bounding box for collision detection
 	        bounds.set(0, 0, dimension.x, dimension.y);
 	        collected = false;
@@ -25,7 +23,7 @@ public class Goal extends AbstractGameObject {
 	    public void render(SpriteBatch batch) {
 	        if (collected) return;
 	        TextureRegion reg = null;
-	        reg = regGoal;
+	        reg = Assets.instance.goal.goal;
 	        batch.draw(reg.getTexture(), position.x, position.y, origin.x, origin.y, dimension.x, dimension.y, scale.x,
 	                scale.y, rotation, reg.getRegionX(), reg.getRegionY(), reg.getRegionWidth(), reg.getRegionHeight(),
 	                false, false);
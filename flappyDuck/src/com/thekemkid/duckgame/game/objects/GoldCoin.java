@@ -5,7 +5,6 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.thekemkid.duckgame.game.Assets;
 
 public class GoldCoin extends AbstractGameObject {
-    private TextureRegion   regGoldCoin;
     public boolean          collected;
 
     public GoldCoin() {
@@ -14,7 +13,6 @@ public class GoldCoin extends AbstractGameObject {
 
     private void init() {
         dimension.set(0.5f, 0.5f);
-        regGoldCoin = Assets.instance.goldCoin.goldCoin;
         // Set bounding box for collision detection
         bounds.set(0, 0, dimension.x, dimension.y);
         collected = false;
@@ -24,7 +22,7 @@ public class GoldCoin extends AbstractGameObject {
         if (collected) return;
 
         TextureRegion reg = null;
-        reg = regGoldCoin;
+        reg = Assets.instance.goldCoin.goldCoin;
         batch.draw(reg.getTexture(), position.x, position.y, origin.x, origin.y, dimension.x, dimension.y, scale.x,
                 scale.y, rotation, reg.getRegionX(), reg.getRegionY(), reg.getRegionWidth(), reg.getRegionHeight(),
                 false, false);
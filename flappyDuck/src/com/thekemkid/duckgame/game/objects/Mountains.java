@@ -1,64 +1,41 @@
 package com.thekemkid.duckgame.game.objects;
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.MathUtils;
 import com.thekemkid.duckgame.game.Assets;
 
-public class Mountains extends AbstractGameObject {
-    private TextureRegion   regMountainLeft;
-    private TextureRegion   regMountainRight;
-    private int             length;
-
-    public Mountains(int length) {
-        this.length = length;
-        init();
+// One layer of the distant mountains: left and right halves alternating,
+// each 10 units wide
+public class Mountains extends ParallaxLayer {
+    // Layers from back to front as { offset x, y, tint, scroll factor }
+    public static final int LAYER_COUNT = 3;
+    private static final float[][] LAYERS = { { 5.0f, 0.0f, 0.5f, 0.3f }, { 2.5f, -0.5f, 0.7f, 0.5f },
+            { 0.0f, -1.0f, 0.9f, 0.8f } };
+
+    private static final float WIDTH = 10;
+    private static final float HEIGHT = 2;
+
+    public Mountains(int layer) {
+        super(LAYERS[layer][1], HEIGHT, LAYERS[layer][3]);
+        offsetX = LAYERS[layer][0];
+        setTiles(WIDTH, WIDTH);
+        setTint(LAYERS[layer][2]);
     }
 
-    private void init() {
-        dimension.set(10, 2);
-
-        regMountainLeft = Assets.instance.levelDecoration.mountainLeft;
-        regMountainRight = Assets.instance.levelDecoration.mountainRight;
-
-        origin.x = -dimension.x * 2;                        // shift mountain and extend length
-        length += dimension.x * 2;
+    @Override
+    protected TextureRegion getTile(int index) {
+        return (index & 1) == 0 ? Assets.instance.levelDecoration.mountainLeft
+                : Assets.instance.levelDecoration.mountainRight;
     }
 
-    private void drawMountain(SpriteBatch batch, float offsetX, float offsetY, float tintColor) {
-        TextureRegion reg = null;
-        batch.setColor(tintColor, tintColor, tintColor, 1);
-        float xRel = dimension.x * offsetX;
-        float yRel = dimension.y * offsetY;
-
-        // mountains span the whole level
-        int mountainLength = 0;
-        mountainLength += MathUtils.ceil(length / (2 * dimension.x));
-        mountainLength += MathUtils.ceil(0.5f + offsetX);
-        for (int i = 0; i < mountainLength; i++) {
-            // mountain left
-            reg = regMountainLeft;
-            batch.draw(reg.getTexture(), origin.x + xRel, position.y + origin.y + yRel, origin.x, origin.y,
-                    dimension.x, dimension.y, scale.x, scale.y, rotation, reg.getRegionX(), reg.getRegionY(),
-                    reg.getRegionWidth(), reg.getRegionHeight(), false, false);
-            xRel += dimension.x;
-
-            // mountain right
-            reg = regMountainRight;
-            batch.draw(reg.getTexture(), origin.x + xRel, position.y + origin.y + yRel, origin.x, origin.y,
-                    dimension.x, dimension.y, scale.x, scale.y, rotation, reg.getRegionX(), reg.getRegionY(),
-                    reg.getRegionWidth(), reg.getRegionHeight(), false, false);
-            xRel += dimension.x;
-        }
-
-        batch.setColor(1, 1, 1, 1);                         // reset color to white
+    @Override
+    protected Texture getRepeatTexture() {
+        return Assets.instance.levelDecoration.mountains;
     }
 
     @Override
-    public void render(SpriteBatch batch) {
-
-        drawMountain(batch, 0.5f, 0.5f, 0.5f);              // distant mountains (dark gray)
-        drawMountain(batch, 0.25f, 0.25f, 0.7f);            // distant mountains (gray)
-        drawMountain(batch, 0.0f, 0.0f, 0.9f);              // distant mountains (light gray)
+    protected float getRepeatWidth() {
+        // a left and a right half
+        return 2 * WIDTH;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package com.thekemkid.duckgame.game.objects;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.thekemkid.duckgame.utils.ViewportCuller;
+
+// A band of decoration that repeats endlessly along x. It is laid out
+// relative to the view every frame, so it costs the same however long the
+// level is. scrollFactor is how far the band moves when the camera moves
+// one unit: 1 moves with the world, less looks further away.
+//
+// A layer with a repeat-wrapped texture is drawn as one quad across the
+// view with wrapped texture coordinates. Atlas regions can not wrap, so
+// layers made of them draw only the tiles that overlap the view.
+public abstract class ParallaxLayer {
+
+    public float y;
+    public float height;
+    public float scrollFactor;
+    // shifts the pattern along x
+    public float offsetX;
+
+    // distance from one tile to the next and drawn width of a tile, a
+    // spacing of 0 stretches one tile over the view
+    protected float tileSpacing;
+    protected float tileWidth;
+    private float tint = 1;
+
+    public ParallaxLayer(float y, float height, float scrollFactor) {
+        this.y = y;
+        this.height = height;
+        this.scrollFactor = scrollFactor;
+    }
+
+    public void setTiles(float spacing, float width) {
+        tileSpacing = spacing;
+        tileWidth = width;
+    }
+
+    public void setTint(float tint) {
+        this.tint = tint;
+    }
+
+    // Art of tile index of the pattern, index may be negative
+    protected abstract TextureRegion getTile(int index);
+
+    // Vertical offset of a tile from y
+    protected float getTileOffsetY(int index) {
+        return 0;
+    }
+
+    // Repeat-wrapped texture holding one period of the pattern, or null to
+    // draw the tiles
+    protected Texture getRepeatTexture() {
+        return null;
+    }
+
+    // Width in world units of one period of the repeat texture
+    protected float getRepeatWidth() {
+        return tileSpacing;
+    }
+
+    public void render(SpriteBatch batch, ViewportCuller culler) {
+        Rectangle view = culler.getView();
+        float left = view.x;
+        float right = view.x + view.width;
+        // world x of pattern x 0
+        float shift = (1 - scrollFactor) * (view.x + view.width / 2) + offsetX;
+
+        batch.setColor(tint, tint, tint, 1);
+        Texture texture = getRepeatTexture();
+        if (texture != null) {
+            float bottom = Math.max(y, view.y);
+            float top = Math.min(y + height, view.y + view.height);
+            if (top > bottom) {
+                float period = getRepeatWidth();
+                // v runs from the top of the image down
+                batch.draw(texture, left, bottom, right - left, top - bottom, (left - shift) / period,
+                        (y + height - bottom) / height, (right - shift) / period, (y + height - top) / height);
+                culler.addDrawn(1);
+            } else {
+                culler.addCulled(1);
+            }
+        } else if (tileSpacing <= 0) {
+            if (y < view.y + view.height && y + height > view.y) {
+                batch.draw(getTile(0), left, y, right - left, height);
+                culler.addDrawn(1);
+            } else {
+                culler.addCulled(1);
+            }
+        } else {
+            int first = MathUtils.ceil((left - shift - tileWidth) / tileSpacing);
+            int last = MathUtils.floor((right - shift) / tileSpacing);
+            for (int i = first; i <= last; i++) {
+                float tileY = y + getTileOffsetY(i);
+                if (tileY >= view.y + view.height || tileY + height <= view.y) {
+                    culler.addCulled(1);
+                    continue;
+                }
+                batch.draw(getTile(i), shift + i * tileSpacing, tileY, tileWidth, height);
+                culler.addDrawn(1);
+            }
+        }
+        batch.setColor(1, 1, 1, 1);
+    }
+}
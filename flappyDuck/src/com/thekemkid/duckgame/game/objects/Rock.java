@@ -1,13 +1,13 @@
 package com.thekemkid.duckgame.game.objects;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
 import com.thekemkid.duckgame.game.Assets;
 
 public class Rock extends AbstractGameObject {
 
-	private TextureRegion regEdge;
-	private TextureRegion regMiddle;
 	private int length;
 
 	public Rock() {
@@ -16,9 +16,6 @@ public class Rock extends AbstractGameObject {
 
 	private void init() {
 		dimension.set(1, 1.5f);
-		regEdge = Assets.instance.rock.edge;
-		regMiddle = Assets.instance.rock.middle;
-
 		setLength(1); // Start length of this rock
 	}
 
@@ -28,41 +25,69 @@ public class Rock extends AbstractGameObject {
         bounds.set(0, 0, dimension.x * length, dimension.y);
     }
 
+	public int getLength() {
+		return length;
+	}
+
 	public void increaseLength(int amount) {
 		setLength(length + amount);
 	}
 
+	@Override
+	public Rectangle getRenderBounds(Rectangle out) {
+		// include the edges drawn left and right of the middle part
+		return out.set(position.x - dimension.x / 4, position.y, dimension.x
+				* length + dimension.x / 2, dimension.y);
+	}
+
 	@Override
 	public void render(SpriteBatch batch) {
-		TextureRegion reg = null;
-		float relX = 0;
-		float relY = 0;
-
-		// Draw left edge
-		reg = regEdge;
-		relX -= dimension.x / 4;
-		batch.draw(reg.getTexture(), position.x + relX, position.y + relY,
-				origin.x, origin.y, dimension.x / 4, dimension.y, scale.x,
-				scale.y, rotation, reg.getRegionX(), reg.getRegionY(),
-				reg.getRegionWidth(), reg.getRegionHeight(), false, false);
-
-		// Draw middle
+		addQuads(batch, null);
+	}
+
+	// Adds the same quads render draws to a sprite cache, rocks never move
+	public void cache(SpriteCache cache) {
+		addQuads(null, cache);
+	}
+
+	// Lays out the rock's quads and draws them to batch or adds them to cache
+	private void addQuads(SpriteBatch batch, SpriteCache cache) {
+		TextureRegion edge = Assets.instance.rock.edge;
+		TextureRegion middle = Assets.instance.rock.middle;
+
+		// Left edge
+		float relX = -dimension.x / 4;
+		addQuad(batch, cache, edge, relX, origin.x, dimension.x / 4, false);
+
+		// Middle
 		relX = 0;
-		reg = regMiddle;
 		for (int i = 0; i < length; i++) {
-			batch.draw(reg.getTexture(), position.x + relX, position.y + relY,
-					origin.x, origin.y, dimension.x, dimension.y, scale.x,
-					scale.y, rotation, reg.getRegionX(), reg.getRegionY(),
-					reg.getRegionWidth(), reg.getRegionHeight(), false, false);
+			addQuad(batch, cache, middle, relX, origin.x, dimension.x, false);
 			relX += dimension.x;
 		}
 
-		// Draw right edge
-		reg = regEdge;
-		batch.draw(reg.getTexture(), position.x + relX, position.y + relY,
-				origin.x + dimension.x / 8, origin.y, dimension.x / 4,
-				dimension.y, scale.x, scale.y, rotation, reg.getRegionX(),
-				reg.getRegionY(), reg.getRegionWidth(), reg.getRegionHeight(),
-				true, false);
+		// Right edge, the left edge mirrored
+		addQuad(batch, cache, edge, relX, origin.x + dimension.x / 8,
+				dimension.x / 4, true);
+	}
+
+	private void addQuad(SpriteBatch batch, SpriteCache cache,
+			TextureRegion reg, float relX, float originX, float width,
+			boolean flipX) {
+		if (batch != null)
+			batch.draw(reg.getTexture(), position.x + relX, position.y,
+					originX, origin.y, width, dimension.y, scale.x, scale.y,
+					rotation, reg.getRegionX(), reg.getRegionY(),
+					reg.getRegionWidth(), reg.getRegionHeight(), flipX, false);
+		else
+			cache.add(reg.getTexture(), position.x + relX, position.y,
+					originX, origin.y, width, dimension.y, scale.x, scale.y,
+					rotation, reg.getRegionX(), reg.getRegionY(),
+					reg.getRegionWidth(), reg.getRegionHeight(), flipX, false);
+	}
+
+	// Number of quads render draws
+	public int getQuadCount() {
+		return length + 2;
 	}
-}
\ No newline at end of file
+}
@@ -1,31 +1,17 @@
 package com.thekemkid.duckgame.game.objects;
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.thekemkid.duckgame.game.Assets;
 
-public class WaterOverlay extends AbstractGameObject {
+// The water below the level, stretched across the view
+public class WaterOverlay extends ParallaxLayer {
 
-    private TextureRegion   regWaterOverlay;
-    private float           length;
-
-    public WaterOverlay(float length) {
-        this.length = length;
-        init();
-    }
-
-    private void init() {
-        dimension.set(length * 10, 3);
-        regWaterOverlay = Assets.instance.levelDecoration.waterOverlay;
-        origin.x = -dimension.x / 2;
+    public WaterOverlay() {
+        super(-3.75f, 3, 1.0f);
     }
 
     @Override
-    public void render(SpriteBatch batch) {
-        TextureRegion reg = null;
-        reg = regWaterOverlay;
-        batch.draw(reg.getTexture(), position.x + origin.x, position.y + origin.y, origin.x, origin.y, dimension.x,
-                dimension.y, scale.x, scale.y, rotation, reg.getRegionX(), reg.getRegionY(), reg.getRegionWidth(),
-                reg.getRegionHeight(), false, false);
+    protected TextureRegion getTile(int index) {
+        return Assets.instance.levelDecoration.waterOverlay;
     }
-}
\ No newline at end of file
+}
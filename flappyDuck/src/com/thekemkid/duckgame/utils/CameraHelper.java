@@ -24,6 +24,13 @@ public class CameraHelper {
 		zoom = 1.0f;
 	}
 
+	// Back to the state of a new helper
+	public void reset() {
+		position.set(0, 0);
+		zoom = 1.0f;
+		target = null;
+	}
+
 	public void update(float deltaTime) {
 		if (!hasTarget())
 			return;
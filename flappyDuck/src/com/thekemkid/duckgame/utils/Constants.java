@@ -12,10 +12,27 @@ public class Constants {
     public static final float   VIEWPORT_GUI_HEIGHT     = 480.0f;
     // Location of description file for texture atlas
     public static final String  TEXTURE_ATLAS_OBJECTS   = "images/bunnyhop.pack";
+    // Same atlas at half size for low density screens,
+    // both written by the AtlasPacker tool
+    public static final String  TEXTURE_ATLAS_OBJECTS_HALF = "images/bunnyhop-half.pack";
+    // Location of an optional repeating mountain image (left and right half,
+    // power of two size), the atlas regions are tiled without it
+    public static final String  TEXTURE_MOUNTAINS       = "images/mountains.png";
+    // Location of the bitmap font, drawn at three sizes
+    public static final String  FONT_DEFAULT            = "images/arial-15.fnt";
+    // Location of an optional distance field font for big text
+    public static final String  FONT_DISTANCE_FIELD     = "images/arial-df.fnt";
+    // Milliseconds per frame spent loading assets while the loading screen
+    // is shown
+    public static final int     ASSET_LOAD_BUDGET       = 12;
+    // Local directory best scores and campaign progress are saved in
+    public static final String  PROGRESS_DIR            = "save";
     // Location of image file for level 01
     public static final String  LEVEL_01                = "levels/level-01.png";
  // Location of image file for level 02
     public static final String  LEVEL_02                = "levels/level-02.png";
+    // Time limit per level in seconds
+    public static final float LEVEL_TIME_LIMIT = 180.0f;
     // Amount of extra lives at level start
     public static final int     LIVES_START             = 3;
     // Duration of feather power-up in seconds
@@ -26,4 +43,36 @@ public class Constants {
     public static final float TIME_DELAY_WIN = 3;
     // Number of levels
     public static final float NUM_LEVELS = 2;
+    // Simulation ticks per second in fixed timestep mode
+    public static final int TICK_RATE = 60;
+    // Most simulation ticks run in one frame before the game slows down
+    public static final int MAX_TICKS_PER_FRAME = 5;
+    // Longest step in variable timestep mode, rock collision is swept so
+    // long steps do not pass through rocks
+    public static final float MAX_STEP_TIME = 0.1f;
+    // Stream compiled levels in chunks instead of loading them at once
+    public static final boolean LEVEL_STREAMING = false;
+    // Columns per chunk when streaming levels
+    public static final int LEVEL_CHUNK_WIDTH = 32;
+    // Chunks kept resident behind and ahead of the camera
+    public static final int LEVEL_CHUNKS_BEHIND = 1;
+    public static final int LEVEL_CHUNKS_AHEAD = 2;
+    // Play an endless generated level instead of the campaign
+    public static final boolean ENDLESS_MODE = false;
+    // Seed of the endless level, the same seed makes the same level
+    public static final long ENDLESS_SEED = 1;
+    // Local directory endless runs are saved in, apart from the campaign
+    public static final String ENDLESS_PROGRESS_DIR = "save-endless";
+    // Draw rocks from a prebuilt sprite cache
+    public static final boolean STATIC_GEOMETRY_CACHE = true;
+    // Show sprite, draw call and texture bind counts of the last frame
+    public static final boolean SHOW_RENDER_STATS = false;
+    // Width in world units of one static geometry cache chunk
+    public static final float STATIC_CACHE_CHUNK_WIDTH = 32.0f;
+    // Cell size of the collision broadphase grid in world units
+    public static final float COLLISION_GRID_CELL_SIZE = 2.0f;
+    // Moving objects closer than this to the player are updated, further
+    // than the sleep distance they are parked until it comes back
+    public static final float UPDATE_WAKE_DISTANCE = 10.0f;
+    public static final float UPDATE_SLEEP_DISTANCE = 15.0f;
 }
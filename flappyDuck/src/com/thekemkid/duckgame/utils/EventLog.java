@@ -0,0 +1,329 @@
+package com.thekemkid.duckgame.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.IntIntMap;
+
+// Logging of frequent game events (pickups, level load problems) from the
+// simulation. An event is an event code and up to MAX_ARGS numbers; it is
+// written into a preallocated ring buffer without locks or allocation and
+// turned into text later by a background thread, which hands it to a Sink.
+//
+// The buffer takes events from any number of threads (compare-and-set on
+// the write position, each slot carries the sequence it was last written
+// or read for). When it is full new events are dropped and counted. A code
+// recorded more than MAX_REPEATS times between two drains is summed up in
+// one line, so a broken level can not flood the log.
+//
+// Events are only recorded between start and stop.
+public class EventLog {
+
+	public static final String TAG = EventLog.class.getName();
+
+	public static final int INFO = 0;
+	public static final int ERROR = 1;
+	public static final int DEBUG = 2;
+
+	public static final int MAX_ARGS = 4;
+	// Power of two
+	private static final int CAPACITY = 4096;
+	private static final int MASK = CAPACITY - 1;
+	private static final long DRAIN_INTERVAL_MILLIS = 50;
+	private static final int MAX_REPEATS = 8;
+
+	// Receives the drained events on the drain thread
+	public interface Sink {
+		// time is the System.nanoTime() of the event
+		void write(int level, String tag, String message, long time);
+
+		// Called after each drain that wrote something
+		void flush();
+	}
+
+	// Forwards to the libGDX application logger
+	public static class PlatformSink implements Sink {
+		@Override
+		public void write(int level, String tag, String message, long time) {
+			switch (level) {
+			case ERROR:
+				GameLog.error(tag, message);
+				break;
+			case DEBUG:
+				GameLog.debug(tag, message);
+				break;
+			default:
+				GameLog.log(tag, message);
+				break;
+			}
+		}
+
+		@Override
+		public void flush() {
+		}
+	}
+
+	// Appends one line per event to a file, with the milliseconds since the
+	// sink was created
+	public static class FileSink implements Sink {
+		private final Writer writer;
+		private final long startTime = System.nanoTime();
+
+		public FileSink(FileHandle file) {
+			writer = file.writer(true, "UTF-8");
+		}
+
+		@Override
+		public void write(int level, String tag, String message, long time) {
+			try {
+				writer.write(String.format("%10.3f %s %s: %s\n",
+						(time - startTime) / 1e6, level == ERROR ? "E"
+								: level == DEBUG ? "D" : "I", tag, message));
+			} catch (IOException e) {
+				// nowhere left to report it
+			}
+		}
+
+		@Override
+		public void flush() {
+			try {
+				writer.flush();
+			} catch (IOException e) {
+				// nowhere left to report it
+			}
+		}
+	}
+
+	private static class Event {
+		final int level;
+		final String tag;
+		final String format;
+
+		Event(int level, String tag, String format) {
+			this.level = level;
+			this.tag = tag;
+			this.format = format;
+		}
+	}
+
+	// slot i holds the event written at position p if sequences[i] == p + 1,
+	// and is free for position p if sequences[i] == p
+	private static final AtomicLongArray sequences = new AtomicLongArray(
+			CAPACITY);
+	private static final int[] codes = new int[CAPACITY];
+	private static final long[] times = new long[CAPACITY];
+	private static final double[] args = new double[CAPACITY * MAX_ARGS];
+	// next position to write
+	private static final AtomicLong tail = new AtomicLong();
+	private static final AtomicLong dropped = new AtomicLong();
+	// next position to read, drain thread only
+	private static long head;
+
+	// copied on write, indexed by code
+	private static volatile Event[] events = new Event[0];
+
+	private static volatile boolean running;
+	private static Thread drainThread;
+	private static Sink sink;
+	// drain thread only
+	private static final IntIntMap repeats = new IntIntMap();
+	private static final double[] eventArgs = new double[MAX_ARGS];
+
+	static {
+		for (int i = 0; i < CAPACITY; i++)
+			sequences.set(i, i);
+	}
+
+	private EventLog() {
+	}
+
+	// Registers an event and returns its code. In format "{}" stands for
+	// the next argument, "{x}" for the next argument in hex.
+	public static synchronized int define(String tag, int level, String format) {
+		Event[] defined = new Event[events.length + 1];
+		System.arraycopy(events, 0, defined, 0, events.length);
+		defined[events.length] = new Event(level, tag, format);
+		events = defined;
+		return events.length - 1;
+	}
+
+	// Starts draining events to sink. Does nothing if already started.
+	public static synchronized void start(Sink sink) {
+		if (running)
+			return;
+		EventLog.sink = sink;
+		running = true;
+		drainThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (running) {
+					if (tryDrain() == 0) {
+						try {
+							Thread.sleep(DRAIN_INTERVAL_MILLIS);
+						} catch (InterruptedException e) {
+							// stop() wakes the thread up to quit
+						}
+					}
+				}
+			}
+		}, "EventLog");
+		drainThread.setDaemon(true);
+		drainThread.start();
+	}
+
+	// Stops recording, writes out what is left and stops the drain thread
+	public static synchronized void stop() {
+		if (!running)
+			return;
+		running = false;
+		drainThread.interrupt();
+		try {
+			drainThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		tryDrain();
+		drainThread = null;
+		sink = null;
+	}
+
+	public static void record(int code) {
+		record(code, 0, 0, 0, 0);
+	}
+
+	public static void record(int code, double a) {
+		record(code, a, 0, 0, 0);
+	}
+
+	public static void record(int code, double a, double b) {
+		record(code, a, b, 0, 0);
+	}
+
+	public static void record(int code, double a, double b, double c) {
+		record(code, a, b, c, 0);
+	}
+
+	public static void record(int code, double a, double b, double c,
+			double d) {
+		if (!running)
+			return;
+		long position;
+		int index;
+		while (true) {
+			position = tail.get();
+			index = (int) position & MASK;
+			long sequence = sequences.get(index);
+			if (sequence == position) {
+				if (tail.compareAndSet(position, position + 1))
+					break;
+			} else if (sequence < position) {
+				// not read yet, the buffer is full
+				dropped.incrementAndGet();
+				return;
+			}
+			// else another thread took this position, try the next one
+		}
+		codes[index] = code;
+		times[index] = System.nanoTime();
+		int arg = index * MAX_ARGS;
+		args[arg] = a;
+		args[arg + 1] = b;
+		args[arg + 2] = c;
+		args[arg + 3] = d;
+		// publishes the writes above to the drain thread
+		sequences.lazySet(index, position + 1);
+	}
+
+	// drain, but a failing sink must not end the drain thread
+	private static int tryDrain() {
+		try {
+			return drain();
+		} catch (RuntimeException e) {
+			GameLog.error(TAG, "Draining events failed: " + e);
+			return 0;
+		}
+	}
+
+	// Writes all recorded events to the sink, returns how many there were
+	private static int drain() {
+		Event[] events = EventLog.events;
+		int count = 0;
+		int failed = 0;
+		RuntimeException failure = null;
+		repeats.clear();
+		while (true) {
+			int index = (int) head & MASK;
+			if (sequences.get(index) != head + 1)
+				break;
+			int code = codes[index];
+			long time = times[index];
+			System.arraycopy(args, index * MAX_ARGS, eventArgs, 0, MAX_ARGS);
+			// hand the slot back to the writers
+			sequences.lazySet(index, head + CAPACITY);
+			head++;
+			count++;
+
+			int repeat = repeats.get(code, 0) + 1;
+			repeats.put(code, repeat);
+			if (repeat > MAX_REPEATS)
+				continue;
+			// defined after the copy above was taken
+			if (code >= events.length)
+				events = EventLog.events;
+			try {
+				Event event = events[code];
+				sink.write(event.level, event.tag,
+						format(event.format, eventArgs), time);
+			} catch (RuntimeException e) {
+				// skip the event, the slot is already handed back
+				failed++;
+				failure = e;
+			}
+		}
+
+		long now = System.nanoTime();
+		for (IntIntMap.Entry<?> entry : repeats.entries()) {
+			if (entry.value <= MAX_REPEATS)
+				continue;
+			Event event = events[entry.key];
+			sink.write(event.level, event.tag, (entry.value - MAX_REPEATS)
+					+ " more of: " + event.format, now);
+		}
+		if (failed > 0)
+			sink.write(ERROR, TAG, failed + " events could not be written: "
+					+ failure, now);
+		long lost = dropped.getAndSet(0);
+		if (lost > 0)
+			sink.write(ERROR, TAG, lost + " events dropped, buffer full", now);
+		if (count > 0 || lost > 0)
+			sink.flush();
+		return count;
+	}
+
+	private static String format(String format, double[] values) {
+		StringBuilder text = new StringBuilder(format.length() + 16);
+		int arg = 0;
+		int start = 0;
+		while (true) {
+			int open = format.indexOf('{', start);
+			int close = open < 0 ? -1 : format.indexOf('}', open);
+			if (close < 0 || arg == MAX_ARGS) {
+				text.append(format, start, format.length());
+				break;
+			}
+			text.append(format, start, open);
+			double value = values[arg++];
+			if (close == open + 2 && format.charAt(open + 1) == 'x')
+				text.append(Long.toHexString((long) value));
+			else if (value == (long) value)
+				text.append((long) value);
+			else
+				text.append((float) value);
+			start = close + 1;
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,26 @@
+package com.thekemkid.duckgame.utils;
+
+import com.badlogic.gdx.Gdx;
+
+// Logging for simulation code. Forwards to the libGDX application logger
+// when there is one, so the simulation also runs without a backend.
+public class GameLog {
+
+	private GameLog() {
+	}
+
+	public static void log(String tag, String message) {
+		if (Gdx.app != null)
+			Gdx.app.log(tag, message);
+	}
+
+	public static void error(String tag, String message) {
+		if (Gdx.app != null)
+			Gdx.app.error(tag, message);
+	}
+
+	public static void debug(String tag, String message) {
+		if (Gdx.app != null)
+			Gdx.app.debug(tag, message);
+	}
+}
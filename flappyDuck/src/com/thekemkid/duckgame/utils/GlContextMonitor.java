@@ -0,0 +1,95 @@
+package com.thekemkid.duckgame.utils;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+// Tells whether the GL context was lost, e.g. after Android paused the app.
+// Holds a 1x1 managed texture: when the backend recreates the context it
+// uploads all managed textures again, and the upload of this one is counted.
+public class GlContextMonitor implements Disposable {
+
+	private final SentinelData data = new SentinelData();
+	private final Texture sentinel;
+	private int checkedUploads;
+
+	public GlContextMonitor() {
+		sentinel = new Texture(data);
+		checkedUploads = data.uploads;
+	}
+
+	// True if the context was lost since the last call
+	public boolean checkContextLost() {
+		boolean lost = data.uploads != checkedUploads;
+		checkedUploads = data.uploads;
+		return lost;
+	}
+
+	@Override
+	public void dispose() {
+		sentinel.dispose();
+	}
+
+	private static class SentinelData implements TextureData {
+
+		int uploads;
+
+		@Override
+		public TextureDataType getType() {
+			return TextureDataType.Pixmap;
+		}
+
+		@Override
+		public boolean isPrepared() {
+			return true;
+		}
+
+		@Override
+		public void prepare() {
+		}
+
+		@Override
+		public Pixmap consumePixmap() {
+			uploads++;
+			return new Pixmap(1, 1, Format.RGBA8888);
+		}
+
+		@Override
+		public boolean disposePixmap() {
+			return true;
+		}
+
+		@Override
+		public void consumeCompressedData(int target) {
+			throw new GdxRuntimeException("Sentinel texture is not compressed");
+		}
+
+		@Override
+		public int getWidth() {
+			return 1;
+		}
+
+		@Override
+		public int getHeight() {
+			return 1;
+		}
+
+		@Override
+		public Format getFormat() {
+			return Format.RGBA8888;
+		}
+
+		@Override
+		public boolean useMipMaps() {
+			return false;
+		}
+
+		@Override
+		public boolean isManaged() {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,300 @@
+package com.thekemkid.duckgame.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.IntIntMap;
+
+// Persistent int to int map with write-behind. put() only changes the map
+// in memory and marks the key for writing, a writer thread saves the
+// changes a moment later. Several puts of a key before that are written
+// once, with the last value.
+//
+// Changes are appended to a journal of fixed size records, each with a
+// checksum, so a crash loses at most the last unwritten changes and a torn
+// last record is ignored when reading. Once the journal is long enough the
+// whole map is written to a snapshot (to a temporary file that is renamed
+// over the old one) and the journal is started over. Opening reads the
+// snapshot and replays the journal on top.
+//
+// get and put are meant for one thread (the render thread), they never wait
+// for the disk.
+public class JournaledStore {
+
+	public static final String TAG = JournaledStore.class.getName();
+
+	private static final String SNAPSHOT = "store.dat";
+	private static final String SNAPSHOT_TEMP = "store.tmp";
+	private static final String JOURNAL = "store.journal";
+	private static final int SNAPSHOT_MAGIC = 0x53544f52; // "STOR"
+	private static final int VERSION = 1;
+	// key, value and checksum
+	private static final int RECORD_SIZE = 12;
+	// Records after which the journal is folded into the snapshot
+	private static final int COMPACT_RECORDS = 512;
+	// Time the writer waits for more changes before writing
+	private static final long WRITE_DELAY_MILLIS = 500;
+
+	// null keeps the store in memory only
+	private final File dir;
+	// owned by the caller thread
+	private final IntIntMap values = new IntIntMap();
+	// guarded by pendingLock: changes not written yet. The map is swapped
+	// with writing, so it cannot be its own lock.
+	private final Object pendingLock = new Object();
+	private IntIntMap pending = new IntIntMap();
+	// guarded by writeLock: what is on disk, and the journal length
+	private final Object writeLock = new Object();
+	private IntIntMap written = new IntIntMap();
+	private IntIntMap writing = new IntIntMap();
+	private int journalRecords;
+
+	private volatile boolean closed;
+	private final Thread writer;
+
+	// Opens the store kept in dir, creating it if needed. A null dir keeps
+	// the values in memory only.
+	public JournaledStore(FileHandle dir) {
+		this.dir = dir == null ? null : dir.file();
+		if (this.dir == null) {
+			writer = null;
+			return;
+		}
+		this.dir.mkdirs();
+		try {
+			read();
+		} catch (IOException e) {
+			GameLog.error(TAG, "Could not read " + this.dir + ": " + e);
+		}
+		values.putAll(written);
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeBehind();
+			}
+		}, "JournaledStore");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public int get(int key, int defaultValue) {
+		return values.get(key, defaultValue);
+	}
+
+	public void put(int key, int value) {
+		if (values.containsKey(key) && values.get(key, 0) == value)
+			return;
+		values.put(key, value);
+		if (writer == null)
+			return;
+		synchronized (pendingLock) {
+			pending.put(key, value);
+			pendingLock.notify();
+		}
+	}
+
+	// Writes the pending changes now, on the calling thread. For pause,
+	// where the process may be killed right after.
+	public void flush() {
+		if (writer != null)
+			write();
+	}
+
+	// Writes the pending changes and stops the writer
+	public void close() {
+		if (writer == null || closed)
+			return;
+		closed = true;
+		synchronized (pendingLock) {
+			pendingLock.notify();
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		write();
+	}
+
+	private void writeBehind() {
+		while (!closed) {
+			synchronized (pendingLock) {
+				while (pending.size == 0 && !closed) {
+					try {
+						pendingLock.wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+			// let more changes of the same keys come in
+			try {
+				if (!closed)
+					Thread.sleep(WRITE_DELAY_MILLIS);
+			} catch (InterruptedException e) {
+				return;
+			}
+			write();
+		}
+	}
+
+	private void write() {
+		synchronized (writeLock) {
+			synchronized (pendingLock) {
+				if (pending.size == 0)
+					return;
+				IntIntMap changes = pending;
+				pending = writing;
+				writing = changes;
+			}
+			try {
+				appendJournal(writing);
+				for (IntIntMap.Entry<?> entry : writing.entries())
+					written.put(entry.key, entry.value);
+				if (journalRecords >= COMPACT_RECORDS)
+					writeSnapshot();
+			} catch (IOException e) {
+				GameLog.error(TAG, "Could not write " + dir + ": " + e);
+			}
+			writing.clear();
+		}
+	}
+
+	private void appendJournal(IntIntMap changes) throws IOException {
+		FileOutputStream file = new FileOutputStream(new File(dir, JOURNAL),
+				true);
+		try {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(file));
+			for (IntIntMap.Entry<?> entry : changes.entries()) {
+				out.writeInt(entry.key);
+				out.writeInt(entry.value);
+				out.writeInt(checksum(entry.key, entry.value));
+				journalRecords++;
+			}
+			out.flush();
+			file.getFD().sync();
+		} finally {
+			file.close();
+		}
+	}
+
+	private void writeSnapshot() throws IOException {
+		File temp = new File(dir, SNAPSHOT_TEMP);
+		FileOutputStream file = new FileOutputStream(temp);
+		try {
+			CRC32 crc = new CRC32();
+			DataOutputStream out = new DataOutputStream(
+					new CheckedOutputStream(new BufferedOutputStream(file), crc));
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(written.size);
+			for (IntIntMap.Entry<?> entry : written.entries()) {
+				out.writeInt(entry.key);
+				out.writeInt(entry.value);
+			}
+			out.writeLong(crc.getValue());
+			out.flush();
+			file.getFD().sync();
+		} finally {
+			file.close();
+		}
+		// the journal may only go once the new snapshot is in place,
+		// replaying it on the new snapshot does no harm
+		File snapshot = new File(dir, SNAPSHOT);
+		if (!temp.renameTo(snapshot)) {
+			// renameTo does not replace files everywhere
+			snapshot.delete();
+			if (!temp.renameTo(snapshot))
+				throw new IOException("Could not rename " + temp);
+		}
+		new File(dir, JOURNAL).delete();
+		journalRecords = 0;
+	}
+
+	private void read() throws IOException {
+		File snapshot = new File(dir, SNAPSHOT);
+		// a crash between deleting the old snapshot and renaming the new
+		// one leaves only the temporary file
+		if (!snapshot.isFile())
+			snapshot = new File(dir, SNAPSHOT_TEMP);
+		if (snapshot.isFile()) {
+			try {
+				readSnapshot(snapshot);
+			} catch (IOException e) {
+				// the journal still has the changes since the snapshot before
+				GameLog.error(TAG, "Could not read " + snapshot + ": " + e);
+			}
+		}
+		File journal = new File(dir, JOURNAL);
+		if (journal.isFile())
+			readJournal(journal);
+	}
+
+	private void readSnapshot(File snapshot) throws IOException {
+		CRC32 crc = new CRC32();
+		DataInputStream in = new DataInputStream(new CheckedInputStream(
+				new BufferedInputStream(new FileInputStream(snapshot)), crc));
+		try {
+			if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION)
+				throw new IOException("Not a store snapshot: " + snapshot);
+			int size = in.readInt();
+			IntIntMap entries = new IntIntMap();
+			for (int i = 0; i < size; i++)
+				entries.put(in.readInt(), in.readInt());
+			long expected = crc.getValue();
+			if (in.readLong() != expected)
+				throw new IOException("Corrupt snapshot: " + snapshot);
+			written.putAll(entries);
+		} finally {
+			in.close();
+		}
+	}
+
+	private void readJournal(File journal) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(journal)));
+		try {
+			while (true) {
+				int key, value, checksum;
+				try {
+					key = in.readInt();
+					value = in.readInt();
+					checksum = in.readInt();
+				} catch (EOFException e) {
+					// end, or a record cut short by a crash
+					break;
+				}
+				if (checksum != checksum(key, value)) {
+					GameLog.error(TAG, "Journal corrupt after "
+							+ journalRecords + " records");
+					break;
+				}
+				written.put(key, value);
+				journalRecords++;
+			}
+		} finally {
+			in.close();
+		}
+		// continue after the last good record
+		if (journal.length() != journalRecords * (long) RECORD_SIZE)
+			writeSnapshot();
+	}
+
+	private static int checksum(int key, int value) {
+		int hash = 0x6a09e667 ^ key;
+		hash = hash * 0x01000193 ^ value;
+		return hash * 0x01000193;
+	}
+}
@@ -0,0 +1,148 @@
+package com.thekemkid.duckgame.utils;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+// SpriteBatch that counts sprites, render calls, color changes and texture
+// switches into a RenderStats.Pass. Set the pass to null to stop counting.
+public class ProfilingSpriteBatch extends SpriteBatch {
+
+	private RenderStats.Pass pass;
+	private Texture lastTexture;
+	private float lastColor = Color.WHITE.toFloatBits();
+
+	public void setPass(RenderStats.Pass pass) {
+		this.pass = pass;
+	}
+
+	public RenderStats.Pass getPass() {
+		return pass;
+	}
+
+	private void count(Texture texture, int sprites) {
+		if (pass == null)
+			return;
+		pass.sprites += sprites;
+		if (texture != lastTexture)
+			pass.textureBinds++;
+		lastTexture = texture;
+	}
+
+	@Override
+	public void begin() {
+		lastTexture = null;
+		super.begin();
+	}
+
+	@Override
+	public void flush() {
+		int before = renderCalls;
+		super.flush();
+		// SpriteBatch counts a render call for every flush with sprites
+		if (pass != null && renderCalls != before)
+			pass.renderCalls++;
+	}
+
+	@Override
+	public void setColor(Color tint) {
+		setColor(tint.toFloatBits());
+	}
+
+	@Override
+	public void setColor(float r, float g, float b, float a) {
+		setColor(Color.toFloatBits(r, g, b, a));
+	}
+
+	@Override
+	public void setColor(float color) {
+		if (pass != null && Float.floatToRawIntBits(color) != Float
+				.floatToRawIntBits(lastColor))
+			pass.colorChanges++;
+		lastColor = color;
+		super.setColor(color);
+	}
+
+	@Override
+	public void draw(Texture texture, float x, float y, float originX,
+			float originY, float width, float height, float scaleX,
+			float scaleY, float rotation, int srcX, int srcY, int srcWidth,
+			int srcHeight, boolean flipX, boolean flipY) {
+		count(texture, 1);
+		super.draw(texture, x, y, originX, originY, width, height, scaleX,
+				scaleY, rotation, srcX, srcY, srcWidth, srcHeight, flipX, flipY);
+	}
+
+	@Override
+	public void draw(Texture texture, float x, float y, float width,
+			float height, int srcX, int srcY, int srcWidth, int srcHeight,
+			boolean flipX, boolean flipY) {
+		count(texture, 1);
+		super.draw(texture, x, y, width, height, srcX, srcY, srcWidth,
+				srcHeight, flipX, flipY);
+	}
+
+	@Override
+	public void draw(Texture texture, float x, float y, int srcX, int srcY,
+			int srcWidth, int srcHeight) {
+		count(texture, 1);
+		super.draw(texture, x, y, srcX, srcY, srcWidth, srcHeight);
+	}
+
+	@Override
+	public void draw(Texture texture, float x, float y, float width,
+			float height, float u, float v, float u2, float v2) {
+		count(texture, 1);
+		super.draw(texture, x, y, width, height, u, v, u2, v2);
+	}
+
+	@Override
+	public void draw(Texture texture, float x, float y) {
+		count(texture, 1);
+		super.draw(texture, x, y);
+	}
+
+	@Override
+	public void draw(Texture texture, float x, float y, float width,
+			float height) {
+		count(texture, 1);
+		super.draw(texture, x, y, width, height);
+	}
+
+	// Used by BitmapFontCache, 20 floats per sprite
+	@Override
+	public void draw(Texture texture, float[] spriteVertices, int offset,
+			int count) {
+		count(texture, count / 20);
+		super.draw(texture, spriteVertices, offset, count);
+	}
+
+	// draw(TextureRegion, x, y) is not overridden, SpriteBatch forwards it to
+	// draw(TextureRegion, x, y, width, height)
+
+	@Override
+	public void draw(TextureRegion region, float x, float y, float width,
+			float height) {
+		count(region.getTexture(), 1);
+		super.draw(region, x, y, width, height);
+	}
+
+	@Override
+	public void draw(TextureRegion region, float x, float y, float originX,
+			float originY, float width, float height, float scaleX,
+			float scaleY, float rotation) {
+		count(region.getTexture(), 1);
+		super.draw(region, x, y, originX, originY, width, height, scaleX,
+				scaleY, rotation);
+	}
+
+	@Override
+	public void draw(TextureRegion region, float x, float y, float originX,
+			float originY, float width, float height, float scaleX,
+			float scaleY, float rotation, boolean clockwise) {
+		count(region.getTexture(), 1);
+		super.draw(region, x, y, originX, originY, width, height, scaleX,
+				scaleY, rotation, clockwise);
+	}
+}
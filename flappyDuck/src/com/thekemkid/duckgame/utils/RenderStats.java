@@ -0,0 +1,75 @@
+package com.thekemkid.duckgame.utils;
+
+// Counters of what the renderer sent to the GPU in the last frame, split
+// into the world and the GUI pass. Filled by ProfilingSpriteBatch and the
+// static geometry cache; read them after WorldRenderer.render().
+public class RenderStats {
+
+	public static class Pass {
+		// Quads submitted
+		public int sprites;
+		// Draw calls issued to the GPU (batch flushes and cached meshes)
+		public int renderCalls;
+		// Batch color changes to a different color
+		public int colorChanges;
+		// Switches to a different texture
+		public int textureBinds;
+
+		public void reset() {
+			sprites = 0;
+			renderCalls = 0;
+			colorChanges = 0;
+			textureBinds = 0;
+		}
+
+		public void set(Pass pass) {
+			sprites = pass.sprites;
+			renderCalls = pass.renderCalls;
+			colorChanges = pass.colorChanges;
+			textureBinds = pass.textureBinds;
+		}
+
+		public boolean sameAs(Pass pass) {
+			return sprites == pass.sprites && renderCalls == pass.renderCalls
+					&& colorChanges == pass.colorChanges
+					&& textureBinds == pass.textureBinds;
+		}
+
+		@Override
+		public String toString() {
+			return "sprites: " + sprites + ", render calls: " + renderCalls
+					+ ", color changes: " + colorChanges + ", texture binds: "
+					+ textureBinds;
+		}
+	}
+
+	public final Pass world = new Pass();
+	public final Pass gui = new Pass();
+
+	public void reset() {
+		world.reset();
+		gui.reset();
+	}
+
+	public void set(RenderStats stats) {
+		world.set(stats.world);
+		gui.set(stats.gui);
+	}
+
+	public boolean sameAs(RenderStats stats) {
+		return world.sameAs(stats.world) && gui.sameAs(stats.gui);
+	}
+
+	public int getRenderCalls() {
+		return world.renderCalls + gui.renderCalls;
+	}
+
+	public int getSprites() {
+		return world.sprites + gui.sprites;
+	}
+
+	@Override
+	public String toString() {
+		return "world: " + world + "\ngui: " + gui;
+	}
+}
@@ -0,0 +1,105 @@
+package com.thekemkid.duckgame.utils;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+
+// Uniform grid broadphase: stores ids (the index of an object in one of the
+// level's arrays) in every cell its bounds overlap.
+public class SpatialGrid {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = SpatialGrid.class.getName();
+
+	private final float cellSize;
+	private final IntMap<IntArray> cells;
+	// emptied cell lists kept by clear for the next inserts
+	private final Array<IntArray> free = new Array<IntArray>();
+
+	public SpatialGrid(float cellSize) {
+		this.cellSize = cellSize;
+		cells = new IntMap<IntArray>();
+	}
+
+	public void insert(int id, float x, float y, float width, float height) {
+		int minX = cell(x), maxX = cell(x + width);
+		int minY = cell(y), maxY = cell(y + height);
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				int key = key(cx, cy);
+				IntArray ids = cells.get(key);
+				if (ids == null) {
+					ids = free.size > 0 ? free.pop() : new IntArray(4);
+					cells.put(key, ids);
+				}
+				ids.add(id);
+			}
+		}
+	}
+
+	// Cells left empty are given up, so a streamed level that keeps adding
+	// and removing objects does not collect cells it has passed
+	public void remove(int id, float x, float y, float width, float height) {
+		int minX = cell(x), maxX = cell(x + width);
+		int minY = cell(y), maxY = cell(y + height);
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				int key = key(cx, cy);
+				IntArray ids = cells.get(key);
+				if (ids == null || !ids.removeValue(id) || ids.size > 0)
+					continue;
+				cells.remove(key);
+				free.add(ids);
+			}
+		}
+	}
+
+	// Collects the ids sharing a cell with rect, sorted and without
+	// duplicates, so callers visit objects in source array order.
+	public void query(Rectangle rect, IntArray result) {
+		result.clear();
+		int minX = cell(rect.x), maxX = cell(rect.x + rect.width);
+		int minY = cell(rect.y), maxY = cell(rect.y + rect.height);
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				IntArray ids = cells.get(key(cx, cy));
+				if (ids != null)
+					result.addAll(ids);
+			}
+		}
+		if (result.size < 2)
+			return;
+
+		// objects spanning several cells show up more than once
+		result.sort();
+		int[] items = result.items;
+		int unique = 1;
+		for (int i = 1; i < result.size; i++) {
+			if (items[i] != items[unique - 1])
+				items[unique++] = items[i];
+		}
+		result.size = unique;
+	}
+
+	// Empties the grid. Filling it again allocates nothing as long as it
+	// needs no more cells than before.
+	public void clear() {
+		for (IntArray ids : cells.values()) {
+			ids.clear();
+			free.add(ids);
+		}
+		cells.clear();
+	}
+
+	private int cell(float value) {
+		return MathUtils.floor(value / cellSize);
+	}
+
+	// x goes into the low bits: levels are wide and flat, and IntMap hashes
+	// on the low bits first
+	private static int key(int cx, int cy) {
+		return (cy & 0xffff) << 16 | (cx & 0xffff);
+	}
+}
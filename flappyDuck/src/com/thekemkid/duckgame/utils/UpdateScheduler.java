@@ -0,0 +1,132 @@
+package com.thekemkid.duckgame.utils;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+
+import com.thekemkid.duckgame.game.objects.AbstractGameObject;
+
+// Keeps the set of game objects that need update() each tick. Only objects
+// that were added are updated at all, so static rocks and items cost
+// nothing. Objects that may sleep are parked once they are sleepDistance
+// away from the focus (the player) and woken when it comes within
+// wakeDistance again, so the cost of update follows the number of awake
+// objects, not the size of the level.
+public class UpdateScheduler {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = UpdateScheduler.class.getName();
+
+	// Width of the columns sleeping objects are filed in
+	private static final float COLUMN_WIDTH = 4.0f;
+
+	private final float wakeDistance;
+	private final float sleepDistance;
+
+	private final Array<AbstractGameObject> alwaysAwake = new Array<AbstractGameObject>();
+	private final Array<AbstractGameObject> awake = new Array<AbstractGameObject>();
+	// sleeping objects by column of their x position
+	private final IntMap<Array<AbstractGameObject>> sleeping = new IntMap<Array<AbstractGameObject>>();
+	private int sleepingCount;
+
+	public UpdateScheduler(float wakeDistance, float sleepDistance) {
+		if (sleepDistance < wakeDistance)
+			throw new IllegalArgumentException(
+					"sleepDistance must not be less than wakeDistance");
+		this.wakeDistance = wakeDistance;
+		this.sleepDistance = sleepDistance;
+	}
+
+	public UpdateScheduler() {
+		this(Constants.UPDATE_WAKE_DISTANCE, Constants.UPDATE_SLEEP_DISTANCE);
+	}
+
+	// Updates obj every tick while it is near the focus, or always if it
+	// may not sleep (e.g. it spans the whole level)
+	public void add(AbstractGameObject obj, boolean maySleep) {
+		if (maySleep)
+			awake.add(obj);
+		else
+			alwaysAwake.add(obj);
+	}
+
+	public void clear() {
+		alwaysAwake.clear();
+		awake.clear();
+		for (Array<AbstractGameObject> column : sleeping.values())
+			column.clear();
+		sleepingCount = 0;
+	}
+
+	public void update(float deltaTime, float focusX) {
+		// wake the columns in reach, objects only go to sleep further away
+		// so these are empty again afterwards
+		if (sleepingCount > 0) {
+			int first = column(focusX - wakeDistance);
+			int last = column(focusX + wakeDistance);
+			for (int c = first; c <= last; c++) {
+				Array<AbstractGameObject> column = sleeping.get(c);
+				if (column == null || column.size == 0)
+					continue;
+				awake.addAll(column);
+				sleepingCount -= column.size;
+				column.clear();
+			}
+		}
+
+		for (int i = 0; i < alwaysAwake.size; i++)
+			alwaysAwake.get(i).update(deltaTime);
+		for (int i = awake.size - 1; i >= 0; i--) {
+			AbstractGameObject obj = awake.get(i);
+			obj.update(deltaTime);
+			if (Math.abs(obj.position.x - focusX) > sleepDistance) {
+				awake.removeIndex(i);
+				sleep(obj);
+			}
+		}
+	}
+
+	private void sleep(AbstractGameObject obj) {
+		int c = column(obj.position.x);
+		Array<AbstractGameObject> column = sleeping.get(c);
+		if (column == null) {
+			column = new Array<AbstractGameObject>();
+			sleeping.put(c, column);
+		}
+		column.add(obj);
+		sleepingCount++;
+	}
+
+	private int column(float x) {
+		return MathUtils.floor(x / COLUMN_WIDTH);
+	}
+
+	public void storePreviousPositions() {
+		for (int i = 0; i < alwaysAwake.size; i++)
+			alwaysAwake.get(i).storePreviousPosition();
+		for (int i = 0; i < awake.size; i++)
+			awake.get(i).storePreviousPosition();
+	}
+
+	public void beginInterpolation(float alpha) {
+		for (int i = 0; i < alwaysAwake.size; i++)
+			alwaysAwake.get(i).beginInterpolation(alpha);
+		for (int i = 0; i < awake.size; i++)
+			awake.get(i).beginInterpolation(alpha);
+	}
+
+	public void endInterpolation() {
+		for (int i = 0; i < alwaysAwake.size; i++)
+			alwaysAwake.get(i).endInterpolation();
+		for (int i = 0; i < awake.size; i++)
+			awake.get(i).endInterpolation();
+	}
+
+	public int getAwakeCount() {
+		return alwaysAwake.size + awake.size;
+	}
+
+	public int getSleepingCount() {
+		return sleepingCount;
+	}
+}
@@ -0,0 +1,71 @@
+package com.thekemkid.duckgame.utils;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.math.Rectangle;
+
+import com.thekemkid.duckgame.game.objects.AbstractGameObject;
+
+// Skips game objects outside the camera's visible area before they reach the
+// sprite batch and counts how many objects were drawn and culled.
+public class ViewportCuller {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = ViewportCuller.class.getName();
+
+	// Extra border around the view so objects do not pop in at the edges
+	private static final float MARGIN = 0.5f;
+
+	private Rectangle view;
+	private Rectangle objectBounds;
+	private int drawn;
+	private int culled;
+
+	public ViewportCuller() {
+		view = new Rectangle();
+		objectBounds = new Rectangle();
+	}
+
+	// Must be called once per frame after CameraHelper.applyTo(camera)
+	public void begin(OrthographicCamera camera) {
+		float width = camera.viewportWidth * camera.zoom;
+		float height = camera.viewportHeight * camera.zoom;
+		view.set(camera.position.x - width / 2 - MARGIN, camera.position.y
+				- height / 2 - MARGIN, width + 2 * MARGIN, height + 2 * MARGIN);
+		drawn = 0;
+		culled = 0;
+	}
+
+	public boolean isVisible(AbstractGameObject obj) {
+		return isVisible(obj.getRenderBounds(objectBounds));
+	}
+
+	public boolean isVisible(Rectangle bounds) {
+		if (view.overlaps(bounds)) {
+			drawn++;
+			return true;
+		}
+		culled++;
+		return false;
+	}
+
+	// For composite objects that clip their own parts against getView()
+	public void addDrawn(int count) {
+		drawn += count;
+	}
+
+	public void addCulled(int count) {
+		culled += count;
+	}
+
+	public Rectangle getView() {
+		return view;
+	}
+
+	public int getDrawnCount() {
+		return drawn;
+	}
+
+	public int getCulledCount() {
+		return culled;
+	}
+}